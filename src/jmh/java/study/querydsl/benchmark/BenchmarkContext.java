@@ -0,0 +1,105 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 (in-memory H2, bench 프로필)
+ * 데이터셋 크기(members) 별로 한번 띄우고 데이터를 채운다.
+ * 회원 나이는 0 ~ 99, 팀은 10개에 고르게 나눈다.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int members;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=bench");
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        populate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    /**
+     * 팀 하나, 나이 20 ~ 40 : 전체의 약 2%
+     */
+    public MemberSearchCondition selectiveCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team0");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        return condition;
+    }
+
+    /**
+     * 나이 10 이상 : 전체의 약 90% (인덱스 없이 넓게 스캔)
+     */
+    public MemberSearchCondition scanCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        return condition;
+    }
+
+    private void populate() {
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                entityManager.persist(team);
+                teams.add(team);
+            }
+            for (int i = 0; i < members; i++) {
+                entityManager.persist(new Member("member" + i, i % 100, teams.get(i % TEAM_COUNT)));
+                if (i % 1000 == 999) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    for (int t = 0; t < TEAM_COUNT; t++) {
+                        teams.set(t, entityManager.getReference(Team.class, teams.get(t).getId()));
+                    }
+                }
+            }
+        });
+    }
+}
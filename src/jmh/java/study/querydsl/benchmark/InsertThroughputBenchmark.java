@@ -0,0 +1,91 @@
+package study.querydsl.benchmark;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 insert 처리량 (rows/s)
+ * allocationSize = 1 이면 회원 한 명마다 시퀀스를 조회한다. (기존 IDENTITY 처럼 행마다 왕복)
+ * allocationSize = 50 이면 pooled-lo 로 50건마다 한번만 시퀀스를 조회하고 insert 는 JDBC 배치로 묶인다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class InsertThroughputBenchmark {
+
+    private static final int ROWS = 100;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate tx;
+    private Long teamId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=bench",
+                        "--spring.jpa.properties.hibernate.id.allocation_size=" + allocationSize);
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        teamId = tx.execute(status -> {
+            Team team = new Team("teamA");
+            entityManager.persist(team);
+            return team.getId();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insert() {
+        tx.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(BATCH_SIZE);
+            Team team = entityManager.getReference(Team.class, teamId);
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(new Member("member" + i, i % 100, team));
+                if (i % BATCH_SIZE == BATCH_SIZE - 1) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    team = entityManager.getReference(Team.class, teamId);
+                }
+            }
+        });
+    }
+}
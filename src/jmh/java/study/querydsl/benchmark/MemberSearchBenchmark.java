@@ -0,0 +1,101 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberCountCache;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동적 쿼리 작성 방식(BooleanBuilder, where 파라미터, 사용자 정의 리포지토리)과
+ * 페이징 방식(fetchResults, content + count 쿼리) 비교
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemberSearchBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+    private MemberSearchCondition condition;
+    private PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        condition = context.selectiveCondition();
+        pageRequest = PageRequest.of(0, 20);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByWhereParam() {
+        return memberJpaRepository.searchByWhereParam(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageRequest);
+    }
+
+    /**
+     * count 캐시(MemberCountCache)를 매번 비우므로 content + count 쿼리를 잰다.
+     */
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex(ColdCountCache coldCountCache) {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+
+    /**
+     * 첫 호출 이후에는 캐시된 count 를 쓰므로 content 쿼리만 잰다.
+     */
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplexCached() {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCountCache {
+
+        private MemberCountCache memberCountCache;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkContext context) {
+            memberCountCache = context.getBean(MemberCountCache.class);
+        }
+
+        @Setup(Level.Invocation)
+        public void invalidate() {
+            memberCountCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberCountCache;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.PagingStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchPage 의 전체 건수 조회 방식 비교 (2번 조회, count(*) over(), count 없음, count 동시 실행)
+ * count 캐시의 효과를 빼기 위해 매번 캐시를 비운다.
+ * scan=true 는 넓은 범위를 스캔하는 조건으로 count 동시 실행의 효과를 본다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PagingStrategyBenchmark {
+
+    @Param({"TWO_QUERY", "WINDOW", "COUNT_FREE", "CONCURRENT_COUNT"})
+    public PagingStrategy strategy;
+
+    @Param({"false", "true"})
+    public boolean scan;
+
+    private MemberRepository memberRepository;
+    private MemberCountCache memberCountCache;
+    private MemberSearchCondition condition;
+    private PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        memberRepository = context.getBean(MemberRepository.class);
+        memberCountCache = context.getBean(MemberCountCache.class);
+        condition = scan ? context.scanCondition() : context.selectiveCondition();
+        pageRequest = PageRequest.of(1, 20);
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> searchPage() {
+        memberCountCache.invalidateAll();
+        return memberRepository.searchPage(condition, pageRequest, strategy);
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.DtoProjection;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * DB 없이 row 하나를 DTO 로 만드는 비용만 비교한다. (FactoryExpression.newInstance)
+ * DtoProjection 이 @QueryProjection(QMemberTeamDto) 과 비슷한 비용인지 확인한다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionFactoryBenchmark {
+
+    private final Object[] row = {1L, "member1", 10, 2L, "teamA"};
+
+    private final FactoryExpression<MemberTeamDto> queryProjection = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.name.as("username"),
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final FactoryExpression<MemberTeamDto> bean = Projections.bean(MemberTeamDto.class,
+            member.id.as("memberId"),
+            member.name.as("username"),
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final FactoryExpression<MemberTeamDto> fields = Projections.fields(MemberTeamDto.class,
+            member.id.as("memberId"),
+            member.name.as("username"),
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final FactoryExpression<MemberTeamDto> constructor = Projections.constructor(MemberTeamDto.class,
+            member.id,
+            member.name,
+            member.age,
+            team.id,
+            team.name);
+
+    private final FactoryExpression<MemberTeamDto> dtoProjectionBean = DtoProjection.bean(MemberTeamDto.class,
+            member.id.as("memberId"),
+            member.name.as("username"),
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final FactoryExpression<MemberTeamDto> dtoProjectionConstructor = DtoProjection.constructor(MemberTeamDto.class,
+            member.id,
+            member.name,
+            member.age,
+            team.id,
+            team.name);
+
+    @Benchmark
+    public MemberTeamDto queryProjection() {
+        return queryProjection.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto projectionsBean() {
+        return bean.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto projectionsFields() {
+        return fields.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto projectionsConstructor() {
+        return constructor.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto dtoProjectionBean() {
+        return dtoProjectionBean.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto dtoProjectionConstructor() {
+        return dtoProjectionConstructor.newInstance(row);
+    }
+}
@@ -0,0 +1,78 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 전체 조회시 영속성 컨텍스트가 붙잡고 있는 힙 (회원 10만 명당 KB)
+ * 읽기/쓰기 트랜잭션 안에서 조회하고, 트랜잭션이 끝나기 전에 GC 후 사용 중인 힙을 잰다.
+ * 실행: -p members=100000 (retainedKbPer100k 는 측정 반복 횟수만큼 합산되어 출력되므로 Cnt 로 나눠서 본다)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"false", "true"})
+    public boolean readOnly;
+
+    private MemberJpaRepository memberJpaRepository;
+    private TransactionTemplate tx;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Heap {
+        public long retainedKbPer100k;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedKbPer100k = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @Benchmark
+    public int findAll(Heap heap) {
+        return tx.execute(status -> {
+            long before = usedHeap();
+            List<Member> members = memberJpaRepository.findAll(readOnly);
+            long retained = usedHeap() - before;
+            heap.retainedKbPer100k = retained * 100_000 / Math.max(1, members.size()) / 1024;
+            return members.size();
+        });
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,120 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.controller.CompactJsonHttpMessageConverter;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB 없이 MemberController 응답 한 페이지를 JSON 으로 쓰는 비용을 비교한다.
+ * reflection: BeanSerializer(어노테이션 무시) + PageImpl 그대로 (기존 응답)
+ * pageImpl: MemberTeamDtoSerializer + PageImpl 그대로 (기본 응답)
+ * compact, columnar: CompactJsonHttpMessageConverter
+ * payload 크기(byte)는 payloadBytes 보조 카운터로 출력한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1000"})
+    int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper reflectionMapper = JsonMapper.builder().disable(MapperFeature.USE_ANNOTATIONS).build();
+    private final CompactJsonHttpMessageConverter converter = new CompactJsonHttpMessageConverter(objectMapper);
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(128 * 1024);
+
+    private Page<MemberTeamDto> page;
+    private Map<String, Object> jsonResult;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, rows), rows * 10L);
+        jsonResult = new LinkedHashMap<>();
+        jsonResult.put("count", rows);
+        jsonResult.put("data", page);
+    }
+
+    @Benchmark
+    public int reflection(Payload payload) throws IOException {
+        out.reset();
+        reflectionMapper.writeValue(out, jsonResult);
+        return record(payload);
+    }
+
+    @Benchmark
+    public int pageImpl(Payload payload) throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, jsonResult);
+        return record(payload);
+    }
+
+    @Benchmark
+    public int compact(Payload payload) throws IOException {
+        return write(payload, false);
+    }
+
+    @Benchmark
+    public int columnar(Payload payload) throws IOException {
+        return write(payload, true);
+    }
+
+    private int write(Payload payload, boolean columnar) throws IOException {
+        out.reset();
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            converter.write(gen, rows, page, columnar);
+        }
+        return record(payload);
+    }
+
+    private int record(Payload payload) {
+        payload.payloadBytes = out.size();
+        return out.size();
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * primary, replica 커넥션 풀과 경로별 지표
+ * replica 커넥션 획득에 실패하면 retryInterval 동안은 replica 를 건너뛰고 primary 를 사용한다.
+ */
+@Slf4j
+public class DataSourcePools implements Closeable {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Getter
+    private final HikariDataSource primary;
+    @Getter
+    private final HikariDataSource replica;
+    private final long retryIntervalNanos;
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private volatile long replicaDownUntil;
+
+    public DataSourcePools(HikariDataSource primary, HikariDataSource replica, Duration retryInterval) {
+        this.primary = primary;
+        this.replica = replica;
+        this.retryIntervalNanos = retryInterval.toNanos();
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaDownUntil == 0 || System.nanoTime() - replicaDownUntil > 0;
+    }
+
+    void recordPrimary() {
+        primaryConnections.incrementAndGet();
+    }
+
+    void recordReplica() {
+        replicaConnections.incrementAndGet();
+        replicaDownUntil = 0;
+    }
+
+    void recordFallback(Exception e) {
+        fallbacks.incrementAndGet();
+        replicaDownUntil = System.nanoTime() + retryIntervalNanos;
+        log.warn("Replica unavailable, falling back to primary: {}", e.getMessage());
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    /**
+     * 경로별 커넥션 획득 횟수와 풀 상태
+     */
+    public Map<String, Map<String, Long>> metrics() {
+        Map<String, Map<String, Long>> metrics = new LinkedHashMap<>();
+        metrics.put(PRIMARY, poolMetrics(primary, primaryConnections.get()));
+        Map<String, Long> replicaMetrics = poolMetrics(replica, replicaConnections.get());
+        replicaMetrics.put("fallbacks", fallbacks.get());
+        metrics.put(REPLICA, replicaMetrics);
+        return metrics;
+    }
+
+    private Map<String, Long> poolMetrics(HikariDataSource dataSource, long connections) {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("connections", connections);
+        HikariPoolMXBean pool = dataSource.isClosed() ? null : dataSource.getHikariPoolMXBean();
+        if (pool != null) {
+            metrics.put("active", (long) pool.getActiveConnections());
+            metrics.put("idle", (long) pool.getIdleConnections());
+            metrics.put("total", (long) pool.getTotalConnections());
+            metrics.put("pending", (long) pool.getThreadsAwaitingConnection());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * datasource.replica.url 이 있을 때만 primary / replica 라우팅 DataSource 를 사용한다.
+ * primary 는 spring.datasource(.hikari), replica 는 datasource.replica(.hikari) 설정을 따른다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public DataSourcePools dataSourcePools(DataSourceProperties primaryProperties, Environment environment) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(DataSourcePools.PRIMARY);
+
+        DataSourceProperties replicaProperties = binder.bind("datasource.replica", DataSourceProperties.class).get();
+        HikariDataSource replica = replicaProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        replica.setConnectionTimeout(Duration.ofSeconds(3).toMillis());
+        binder.bind("datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName(DataSourcePools.REPLICA);
+        replica.setReadOnly(true);
+
+        Duration retryInterval = binder.bind("datasource.replica.retry-interval", Duration.class).orElse(Duration.ofSeconds(5));
+        return new DataSourcePools(primary, replica, retryInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourcePools dataSourcePools) {
+        return new ReplicaRoutingDataSource(dataSourcePools);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        ReplicaRoutingTransactionManager transactionManager = new ReplicaRoutingTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    /**
+     * 경로는 커넥션을 얻을 때 정해지므로 세션이 트랜잭션 사이에 커넥션을 들고 있지 않게 한다.
+     * (open-in-view 로 요청 전체에 묶인 세션도 트랜잭션마다 새로 라우팅된다)
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica 로, 나머지는 primary 로 보낸다.
+ * p6spy 가 getConnection 시점에 메타데이터를 조회하므로 LazyConnectionDataSourceProxy 로는 경로를 늦출 수 없다.
+ * 그래서 ReplicaRoutingTransactionManager 가 커넥션을 얻기 전에 readOnly 여부를 넘겨준다.
+ *
+ * 경로는 커넥션을 얻을 때 한 번 정해지므로, 세션이 트랜잭션이 끝난 뒤에도 커넥션을 들고 있으면 안 된다.
+ * (ReplicaDataSourceConfig 가 hibernate.connection.handling_mode 를 트랜잭션마다 반납하도록 설정한다)
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private final DataSourcePools pools;
+
+    public ReplicaRoutingDataSource(DataSourcePools pools) {
+        this.pools = pools;
+    }
+
+    static void setReadOnly(boolean readOnly) {
+        READ_ONLY.set(readOnly);
+    }
+
+    static void clearReadOnly() {
+        READ_ONLY.remove();
+    }
+
+    /**
+     * 현재 트랜잭션의 readOnly 와 상관없이 action 안에서 얻는 커넥션은 primary 로 보낸다.
+     */
+    public static void runOnPrimary(Runnable action) {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(false);
+        try {
+            action.run();
+        } finally {
+            if (previous != null) {
+                READ_ONLY.set(previous);
+            } else {
+                READ_ONLY.remove();
+            }
+        }
+    }
+
+    private static boolean isReadOnly() {
+        Boolean readOnly = READ_ONLY.get();
+        return readOnly != null ? readOnly : TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (isReadOnly() && pools.isReplicaAvailable()) {
+            try {
+                Connection connection = pools.getReplica().getConnection();
+                pools.recordReplica();
+                return connection;
+            } catch (SQLException e) {
+                pools.recordFallback(e);
+            }
+        }
+        Connection connection = pools.getPrimary().getConnection();
+        pools.recordPrimary();
+        return connection;
+    }
+
+    /**
+     * 계정을 지정한 커넥션은 primary 풀로 보낸다.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = pools.getPrimary().getConnection(username, password);
+        pools.recordPrimary();
+        return connection;
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * 트랜잭션을 시작하기 전에 readOnly 여부를 ReplicaRoutingDataSource 에 알려준다.
+ * (TransactionSynchronizationManager 의 readOnly 플래그는 커넥션을 얻은 뒤에야 설정된다)
+ */
+public class ReplicaRoutingTransactionManager extends JpaTransactionManager {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        ReplicaRoutingDataSource.setReadOnly(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            ReplicaRoutingDataSource.clearReadOnly();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            ReplicaRoutingDataSource.clearReadOnly();
+        }
+    }
+}
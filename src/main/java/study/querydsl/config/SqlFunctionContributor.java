@@ -0,0 +1,22 @@
+package study.querydsl.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * JPQL 에서 쓸 수 없는 SQL 을 함수로 등록한다.
+ */
+public class SqlFunctionContributor implements MetadataBuilderContributor {
+
+    /**
+     * count(*) over() : 페이징된 row 마다 전체 건수를 같이 내려준다.
+     */
+    public static final String COUNT_OVER = "count_over";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(COUNT_OVER, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+    }
+}
@@ -0,0 +1,120 @@
+package study.querydsl.config;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * p6spy 이벤트로 SQL 실행을 세고, start ~ stop 사이의 통계를 현재 스레드에 모은다.
+ * 범위는 SqlStatementFilter(HTTP 요청)와 테스트의 SqlBudgetExtension 이 연다.
+ */
+@Slf4j
+@Component
+public class SqlStatementListener extends JdbcEventListener {
+
+    private final ThreadLocal<SqlStatementStats> current = new ThreadLocal<>();
+    private final int nPlusOneThreshold;
+
+    private final AtomicLong scopes = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong nPlusOneWarnings = new AtomicLong();
+    private final AtomicLong maxStatementsPerScope = new AtomicLong();
+
+    public SqlStatementListener(@Value("${sql.n-plus-one-threshold:3}") int nPlusOneThreshold) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    /**
+     * 현재 스레드에서 통계 수집을 시작한다. (중첩되지 않는다)
+     */
+    public SqlStatementStats start() {
+        SqlStatementStats stats = new SqlStatementStats(nPlusOneThreshold);
+        current.set(stats);
+        return stats;
+    }
+
+    /**
+     * 수집을 끝내고 전체 지표에 더한 뒤 N+1 의심 SQL 을 경고로 남긴다.
+     */
+    public SqlStatementStats stop(String scope) {
+        SqlStatementStats stats = current.get();
+        current.remove();
+        if (stats == null) {
+            return null;
+        }
+
+        scopes.incrementAndGet();
+        maxStatementsPerScope.accumulateAndGet(stats.getStatements(), Math::max);
+        for (SqlStatementStats.Shape suspect : stats.getNPlusOneSuspects()) {
+            nPlusOneWarnings.incrementAndGet();
+            log.warn("N+1 suspected in {}: {}", scope, suspect);
+        }
+        log.debug("SQL in {}: {}", scope, stats);
+        return stats;
+    }
+
+    public Map<String, Long> metrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("scopes", scopes.get());
+        metrics.put("statements", statements.get());
+        metrics.put("roundTrips", roundTrips.get());
+        metrics.put("maxStatementsPerScope", maxStatementsPerScope.get());
+        metrics.put("nPlusOneWarnings", nPlusOneWarnings.get());
+        return metrics;
+    }
+
+    @Override
+    public void onAfterExecute(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        record(statementInformation.getSql(), 1, true);
+    }
+
+    @Override
+    public void onAfterExecute(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        record(sql, 1, false);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        record(statementInformation.getSql(), 1, true);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        record(sql, 1, false);
+    }
+
+    @Override
+    public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        record(statementInformation.getSql(), 1, true);
+    }
+
+    @Override
+    public void onAfterExecuteQuery(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        record(sql, 1, false);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        int batched = updateCounts != null ? updateCounts.length : 1;
+        record(statementInformation.getSql(), batched, statementInformation instanceof PreparedStatementInformation);
+    }
+
+    private void record(String sql, int statementCount, boolean prepared) {
+        statements.addAndGet(statementCount);
+        roundTrips.incrementAndGet();
+
+        SqlStatementStats stats = current.get();
+        if (stats != null && sql != null) {
+            stats.record(sql, statementCount, prepared);
+        }
+    }
+}
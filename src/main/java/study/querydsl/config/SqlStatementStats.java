@@ -0,0 +1,100 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 하나의 범위(HTTP 요청, 테스트 메서드)에서 실행된 SQL 통계
+ * statements: 실행된 SQL 수 (배치는 묶인 SQL 수만큼), roundTrips: DB 왕복 수
+ * 같은 모양의 SQL 이 threshold 번 이상 반복되면 N+1 로 의심한다.
+ * 한 스레드 안에서만 쓰이므로 동기화하지 않는다.
+ */
+@Getter
+public class SqlStatementStats {
+
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    private final int nPlusOneThreshold;
+    private int statements;
+    private int roundTrips;
+    private final Map<String, Shape> shapes = new LinkedHashMap<>();
+
+    public SqlStatementStats(int nPlusOneThreshold) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    void record(String sql, int statementCount, boolean prepared) {
+        statements += statementCount;
+        roundTrips++;
+
+        String shape = prepared ? sql : LITERALS.matcher(sql).replaceAll("?");
+        Shape s = shapes.computeIfAbsent(shape, Shape::new);
+        s.count++;
+        if (s.count == nPlusOneThreshold) {
+            s.callSite = callSite();
+        }
+    }
+
+    /**
+     * 반복 횟수가 threshold 이상인 SQL 모양
+     */
+    public List<Shape> getNPlusOneSuspects() {
+        List<Shape> suspects = new ArrayList<>();
+        for (Shape shape : shapes.values()) {
+            if (shape.count >= nPlusOneThreshold) {
+                suspects.add(shape);
+            }
+        }
+        return suspects;
+    }
+
+    public void clear() {
+        statements = 0;
+        roundTrips = 0;
+        shapes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "statements=" + statements + ", roundTrips=" + roundTrips + ", shapes=" + shapes.size();
+    }
+
+    /**
+     * 애플리케이션 코드 중 SQL 을 발생시킨 가장 가까운 위치 (프록시, 이 패키지의 수집 코드는 제외)
+     */
+    private static StackTraceElement callSite() {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("study.querydsl.")
+                    && !className.startsWith(SqlStatementStats.class.getName())
+                    && !className.startsWith(SqlStatementListener.class.getName())
+                    && !className.contains("$$")
+                    && !className.contains("$HibernateProxy$")) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    @Getter
+    public static class Shape {
+
+        private final String sql;
+        private int count;
+        private StackTraceElement callSite;
+
+        Shape(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public String toString() {
+            return count + "x [" + sql + "] at " + callSite;
+        }
+    }
+}
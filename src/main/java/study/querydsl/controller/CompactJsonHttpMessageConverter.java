@@ -0,0 +1,141 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoSerializer;
+import study.querydsl.repository.support.KeysetSlice;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * MemberController 의 JsonResult 를 간단한 형식으로 쓴다. (Accept 헤더로 선택)
+ * 기본 형식은 PageImpl 을 그대로 직렬화해서 Pageable, Sort 와 중복된 페이지 정보가 모두 들어간다.
+ *
+ * application/vnd.member.compact+json : {"count", "content": [{...}], 페이지 정보}
+ * application/vnd.member.columnar+json : {"count", "columns": [...], "rows": [[...]], 페이지 정보}
+ */
+public class CompactJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType COMPACT = MediaType.parseMediaType("application/vnd.member.compact+json");
+    public static final MediaType COLUMNAR = MediaType.parseMediaType("application/vnd.member.columnar+json");
+
+    private final ObjectMapper objectMapper;
+
+    public CompactJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(COMPACT, COLUMNAR);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberController.JsonResult.class.isAssignableFrom(clazz);
+    }
+
+    /**
+     * Accept 헤더에 이 형식이 명시된 경우에만 사용한다. (mediaType 이 null 이면 응답 가능한 형식을 묻는 것)
+     * 형식은 JSON 변환기의 application/*+json 으로 선택되므로, Accept 헤더가 없거나 모든 형식을 허용하면 기본 JSON 으로 응답한다.
+     */
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return mediaType != null && super.canWrite(mediaType);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Compact JSON is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, HttpOutputMessage outputMessage) throws IOException {
+        MemberController.JsonResult<?> result = (MemberController.JsonResult<?>) object;
+        boolean columnar = COLUMNAR.isCompatibleWith(outputMessage.getHeaders().getContentType());
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(outputMessage.getBody(), JsonEncoding.UTF8);
+        write(gen, result.getCount(), result.getData(), columnar);
+        gen.flush();
+    }
+
+    public void write(JsonGenerator gen, int count, Object data, boolean columnar) throws IOException {
+        //응답을 쓰기 시작한 뒤에는 오류 응답으로 바꿀 수 없으므로 먼저 확인한다.
+        if (columnar) {
+            checkColumnar(data);
+        }
+        gen.writeStartObject();
+        gen.writeNumberField("count", count);
+
+        if (data instanceof Slice) {
+            Slice<?> slice = (Slice<?>) data;
+            writeContent(gen, slice.getContent(), columnar);
+            gen.writeNumberField("page", slice.getNumber());
+            gen.writeNumberField("size", slice.getSize());
+            gen.writeBooleanField("hasNext", slice.hasNext());
+            if (slice instanceof Page) {
+                gen.writeNumberField("totalElements", ((Page<?>) slice).getTotalElements());
+                gen.writeNumberField("totalPages", ((Page<?>) slice).getTotalPages());
+            }
+        } else if (data instanceof KeysetSlice) {
+            KeysetSlice<?> slice = (KeysetSlice<?>) data;
+            writeContent(gen, slice.getContent(), columnar);
+            gen.writeNumberField("size", slice.getSize());
+            gen.writeBooleanField("hasNext", slice.isHasNext());
+            gen.writeStringField("nextCursor", slice.getNextCursor());
+        } else if (data instanceof Collection) {
+            writeContent(gen, (Collection<?>) data, columnar);
+        } else {
+            gen.writeFieldName("content");
+            objectMapper.writeValue(gen, data);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void checkColumnar(Object data) {
+        Collection<?> content;
+        if (data instanceof Slice) {
+            content = ((Slice<?>) data).getContent();
+        } else if (data instanceof KeysetSlice) {
+            content = ((KeysetSlice<?>) data).getContent();
+        } else if (data instanceof Collection) {
+            content = (Collection<?>) data;
+        } else {
+            return;
+        }
+        for (Object row : content) {
+            if (!(row instanceof MemberTeamDto)) {
+                throw new HttpMessageNotWritableException("Columnar layout supports only MemberTeamDto: " + row.getClass().getName());
+            }
+        }
+    }
+
+    private void writeContent(JsonGenerator gen, Collection<?> content, boolean columnar) throws IOException {
+        if (columnar) {
+            gen.writeFieldName("columns");
+            MemberTeamDtoSerializer.writeColumns(gen);
+        }
+        gen.writeArrayFieldStart(columnar ? "rows" : "content");
+        for (Object row : content) {
+            if (columnar) {
+                MemberTeamDtoSerializer.writeValues((MemberTeamDto) row, gen);
+            } else if (row instanceof MemberTeamDto) {
+                MemberTeamDtoSerializer.writeObject((MemberTeamDto) row, gen);
+            } else {
+                objectMapper.writeValue(gen, row);
+            }
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.config.DataSourcePools;
+
+import java.util.Map;
+
+/**
+ * primary, replica 경로별 커넥션 획득 횟수와 풀 상태 (replica 가 설정되어 있을 때만)
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datasource.replica", name = "url")
+public class DataSourceStatisticsController {
+
+    private final DataSourcePools dataSourcePools;
+
+    @GetMapping(value = "/v1/datasource/stats")
+    public Map<String, Map<String, Long>> dataSourceStatistics() {
+        return dataSourcePools.metrics();
+    }
+}
@@ -1,42 +1,190 @@
 package study.querydsl.controller;
 
 import lombok.*;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.config.DataSourcePools;
+import study.querydsl.dto.MemberArchiveProgress;
+import study.querydsl.dto.MemberCreateRequest;
+import study.querydsl.dto.MemberImportResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberDataVersion;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.PagingStrategy;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.repository.support.InvalidCursorException;
+import study.querydsl.repository.support.KeysetSlice;
+import study.querydsl.repository.support.UnsupportedKeysetSortException;
+import study.querydsl.service.MemberArchiveService;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberImportService;
+import study.querydsl.service.MemberIngestionBuffer;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
-    private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final MemberExportService memberExportService;
+    private final MemberArchiveService memberArchiveService;
+    private final MemberImportService memberImportService;
+    private final MemberIngestionBuffer memberIngestionBuffer;
+    private final MemberDataVersion memberDataVersion;
+    private final ObjectProvider<DataSourcePools> dataSourcePools;
 
     @GetMapping(value = "/v1/members")
-    public JsonResult searchMemberV1(MemberSearchCondition condition) {
-        List<MemberTeamDto> resultList = memberJpaRepository.searchByBuilder(condition);
+    public JsonResult searchMemberV1(MemberSearchCondition condition, WebRequest request) {
+        if (notModified(request, "v1", condition)) {
+            return null;
+        }
+        List<MemberTeamDto> resultList = memberRepository.search(condition);
         return new JsonResult(resultList.size(), resultList);
     }
 
     @GetMapping(value = "/v2/members")
-    public JsonResult searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public JsonResult searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request, "v2", condition, pageable)) {
+            return null;
+        }
         Page<MemberTeamDto> resultList = memberRepository.searchPageSimple(condition, pageable);
         return new JsonResult(resultList.getSize(), resultList);
     }
 
     @GetMapping(value = "/v3/members")
-    public JsonResult searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        Page<MemberTeamDto> resultList = memberRepository.searchPageComplex(condition, pageable);
+    public JsonResult searchMemberV3(MemberSearchCondition condition,
+                                     @RequestParam(defaultValue = "TWO_QUERY") PagingStrategy strategy,
+                                     Pageable pageable, WebRequest request) {
+        if (notModified(request, "v3", condition, strategy, pageable)) {
+            return null;
+        }
+        Slice<MemberTeamDto> resultList = memberRepository.searchPage(condition, pageable, strategy);
         return new JsonResult(resultList.getSize(), resultList);
     }
 
+    @GetMapping(value = "/v4/members")
+    public JsonResult searchMemberV4(MemberSearchCondition condition,
+                                     @RequestParam(required = false) String cursor,
+                                     Pageable pageable, WebRequest request) {
+        if (notModified(request, "v4", condition, cursor, pageable)) {
+            return null;
+        }
+        KeysetSlice<MemberTeamDto> resultList = memberRepository.searchKeyset(condition, cursor, pageable);
+        return new JsonResult(resultList.getContent().size(), resultList);
+    }
+
+    @GetMapping(value = "/v5/members")
+    public JsonResult searchMemberV5(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request, "v5", condition, pageable)) {
+            return null;
+        }
+        Slice<MemberTeamDto> resultList = memberRepository.searchSlice(condition, pageable);
+        return new JsonResult(resultList.getNumberOfElements(), resultList);
+    }
+
+    @GetMapping(value = "/v1/members/export", produces = "application/x-ndjson")
+    public void exportMembers(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(condition, response.getOutputStream());
+    }
+
+    /**
+     * 배치로 모아서 저장한다. (MemberIngestionBuffer) 커밋된 뒤 회원 id 를 응답한다.
+     * 잘못된 요청은 큐에 넣기 전에 400 으로 응답한다. (배치 안의 한 건이 실패하면 배치 전체를 한 건씩 다시 저장한다)
+     */
+    @PostMapping(value = "/v1/members")
+    public CompletableFuture<Long> createMember(@RequestBody MemberCreateRequest request) {
+        validate(request);
+        return memberIngestionBuffer.submit(request.getName(), request.getAge(), request.getTeamId());
+    }
+
+    private void validate(MemberCreateRequest request) {
+        if (!StringUtils.hasText(request.getName())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name must not be blank");
+        }
+        if (request.getAge() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "age must not be negative");
+        }
+        if (request.getTeamId() != null && teamRepository.findById(request.getTeamId()).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown team: " + request.getTeamId());
+        }
+    }
+
+    @GetMapping(value = "/v1/members/ingest/stats")
+    public Map<String, Long> ingestionStatistics() {
+        return memberIngestionBuffer.metrics();
+    }
+
+    @PostMapping(value = "/v1/members/import", consumes = "text/csv")
+    public MemberImportResult importMembers(HttpServletRequest request) throws IOException {
+        return memberImportService.importCsv(request.getInputStream());
+    }
+
+    @PostMapping(value = "/v1/members/archive")
+    public MemberArchiveProgress archiveMembers(MemberSearchCondition condition) {
+        return memberArchiveService.start(condition);
+    }
+
+    @GetMapping(value = "/v1/members/archive/{jobId}")
+    public MemberArchiveProgress archiveProgress(@PathVariable Long jobId) {
+        return memberArchiveService.getProgress(jobId);
+    }
+
+    @PostMapping(value = "/v1/members/archive/{jobId}/resume")
+    public MemberArchiveProgress resumeArchive(@PathVariable Long jobId) {
+        return memberArchiveService.resume(jobId);
+    }
+
+    /**
+     * 클라이언트가 보낸 커서, 정렬 조건이 잘못된 경우
+     */
+    @ExceptionHandler({InvalidCursorException.class, UnsupportedKeysetSortException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badKeysetRequest(IllegalArgumentException e) {
+        return Map.of("message", e.getMessage());
+    }
+
+    /**
+     * 데이터 버전(MemberDataVersion) + 요청 조건 + Accept 헤더로 ETag 를 만든다.
+     * If-None-Match 가 같으면 조회와 직렬화 없이 304 를 응답한다.
+     * (Last-Modified 는 초 단위라 같은 초 안의 변경을 놓칠 수 있어서 사용하지 않는다)
+     * replica 를 사용하면 조회가 커밋보다 늦을 수 있어서 최신 버전의 ETag 에 이전 데이터가 묶이므로 사용하지 않는다.
+     */
+    private boolean notModified(WebRequest request, Object... keys) {
+        if (dataSourcePools.getIfAvailable() != null) {
+            return false;
+        }
+        String key = Arrays.toString(keys) + request.getHeader(HttpHeaders.ACCEPT);
+        String etag = "\"" + memberDataVersion.get() + "-" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+        return request.checkNotModified(etag);
+    }
 
     @Data
     @AllArgsConstructor
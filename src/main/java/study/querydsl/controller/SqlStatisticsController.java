@@ -0,0 +1,23 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.config.SqlStatementListener;
+
+import java.util.Map;
+
+/**
+ * 요청별로 모은 SQL 실행 지표 (SqlStatementFilter)
+ */
+@RestController
+@RequiredArgsConstructor
+public class SqlStatisticsController {
+
+    private final SqlStatementListener sqlStatementListener;
+
+    @GetMapping(value = "/v1/sql/stats")
+    public Map<String, Long> sqlStatistics() {
+        return sqlStatementListener.metrics();
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.repository.TeamRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+
+    @GetMapping(value = "/v1/teams/roster")
+    public List<TeamRosterDto> teamRoster(Pageable pageable) {
+        return teamRepository.findRosters(pageable);
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import study.querydsl.entity.MemberArchiveJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * 회원 보관 작업 진행 상황
+ * rowsPerSecond 는 이 서버에서 실행 중일 때 최근 배치 기준의 처리 속도다.
+ */
+@Data
+@AllArgsConstructor
+public class MemberArchiveProgress {
+
+    private Long jobId;
+    private MemberArchiveJob.Status status;
+    private boolean running;
+    private Long lastId;
+    private long rowsArchived;
+    private int batches;
+    private double rowsPerSecond;
+    private String failure;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+}
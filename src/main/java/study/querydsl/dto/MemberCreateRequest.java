@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 회원 생성 요청 (teamId 는 없어도 된다)
+ */
+@Data
+public class MemberCreateRequest {
+
+    private String name;
+    private int age;
+    private Long teamId;
+}
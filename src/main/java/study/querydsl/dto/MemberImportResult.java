@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 회원 CSV 가져오기 결과
+ * maxManagedEntities 는 가져오는 동안 영속성 컨텍스트에 한 번에 있던 엔티티 수의 최댓값이다.
+ */
+@Data
+@AllArgsConstructor
+public class MemberImportResult {
+
+    private long rows;
+    private int teamsCreated;
+    private int chunks;
+    private int maxManagedEntities;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -1,11 +1,13 @@
 package study.querydsl.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
+@JsonSerialize(using = MemberTeamDtoSerializer.class)
 public class MemberTeamDto {
 
     private Long memberId;
@@ -0,0 +1,77 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * MemberTeamDto 전용 Jackson serializer
+ * 리플렉션(BeanSerializer) 없이 필드를 바로 쓰고, 필드명은 미리 인코딩해 둔다.
+ * 컬럼 형식(columnar)은 필드명을 한 번만 쓰고(writeColumns) row 마다 값 배열만 쓴다(writeValues).
+ */
+public class MemberTeamDtoSerializer extends StdSerializer<MemberTeamDto> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializableString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString TEAM_ID = new SerializedString("teamId");
+    private static final SerializableString TEAM_NAME = new SerializedString("teamName");
+
+    private static final SerializableString[] COLUMNS = {MEMBER_ID, USERNAME, AGE, TEAM_ID, TEAM_NAME};
+
+    public MemberTeamDtoSerializer() {
+        super(MemberTeamDto.class);
+    }
+
+    @Override
+    public void serialize(MemberTeamDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeObject(dto, gen);
+    }
+
+    public static void writeObject(MemberTeamDto dto, JsonGenerator gen) throws IOException {
+        gen.writeStartObject(dto);
+        gen.writeFieldName(MEMBER_ID);
+        writeLong(gen, dto.getMemberId());
+        gen.writeFieldName(USERNAME);
+        gen.writeString(dto.getUsername());
+        gen.writeFieldName(AGE);
+        gen.writeNumber(dto.getAge());
+        gen.writeFieldName(TEAM_ID);
+        writeLong(gen, dto.getTeamId());
+        gen.writeFieldName(TEAM_NAME);
+        gen.writeString(dto.getTeamName());
+        gen.writeEndObject();
+    }
+
+    public static void writeColumns(JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        for (SerializableString column : COLUMNS) {
+            gen.writeString(column);
+        }
+        gen.writeEndArray();
+    }
+
+    public static void writeValues(MemberTeamDto dto, JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        writeLong(gen, dto.getMemberId());
+        gen.writeString(dto.getUsername());
+        gen.writeNumber(dto.getAge());
+        writeLong(gen, dto.getTeamId());
+        gen.writeString(dto.getTeamName());
+        gen.writeEndArray();
+    }
+
+    private static void writeLong(JsonGenerator gen, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
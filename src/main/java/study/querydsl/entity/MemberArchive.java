@@ -0,0 +1,33 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 보관 처리(MemberArchiveService)된 회원. id 는 원래 member_id 를 그대로 쓴다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "name", "age", "teamId", "jobId"})
+public class MemberArchive {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+
+    @Column(name = "member_name")
+    private String name;
+
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "job_id")
+    private Long jobId;
+
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,93 @@
+package study.querydsl.entity;
+
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import study.querydsl.config.PooledSequenceGenerator;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 회원 보관 작업과 체크포인트
+ * 배치를 옮길 때마다 같은 트랜잭션에서 lastId 를 저장하므로, 중단되어도 lastId 다음부터 이어서 실행할 수 있다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "status", "lastId", "rowsArchived", "batches"})
+public class MemberArchiveJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_archive_job_seq")
+    @GenericGenerator(name = "member_archive_job_seq", strategy = PooledSequenceGenerator.NAME,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_archive_job_seq"))
+    @Column(name = "job_id")
+    private Long id;
+
+    //검색 조건
+    private String username;
+    private String teamName;
+    private Integer ageGoe;
+    private Integer ageLoe;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private Long lastId;
+    private long rowsArchived;
+    private int batches;
+    private String failure;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+
+    public MemberArchiveJob(MemberSearchCondition condition) {
+        this.username = condition.getUsername();
+        this.teamName = condition.getTeamName();
+        this.ageGoe = condition.getAgeGoe();
+        this.ageLoe = condition.getAgeLoe();
+        this.status = Status.RUNNING;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = startedAt;
+    }
+
+    public MemberSearchCondition toCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    public void checkpoint(Long lastId, long rows) {
+        this.lastId = lastId;
+        this.rowsArchived += rows;
+        this.batches++;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void resume() {
+        this.status = Status.RUNNING;
+        this.failure = null;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.status = Status.COMPLETED;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void fail(String failure) {
+        this.status = Status.FAILED;
+        this.failure = failure;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
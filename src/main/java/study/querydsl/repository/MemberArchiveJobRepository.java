@@ -0,0 +1,11 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.querydsl.entity.MemberArchiveJob;
+
+import java.util.List;
+
+public interface MemberArchiveJobRepository extends JpaRepository<MemberArchiveJob, Long> {
+
+    List<MemberArchiveJob> findByStatus(MemberArchiveJob.Status status);
+}
@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberArchive.memberArchive;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 보관 작업의 배치 쿼리 (MemberArchiveService)
+ * 배치마다 옮기고 지우는 쿼리와 체크포인트가 한 트랜잭션에서 실행되어야 하므로 트랜잭션 안에서만 호출한다.
+ */
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+public class MemberArchiveRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    public MemberArchiveRepository(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    /**
+     * afterId 보다 큰 대상 회원 id 를 오름차순으로 limit 건
+     */
+    public List<Long> findIds(MemberSearchCondition condition, Long afterId, int limit) {
+        return queryFactory
+                .select(member.id)
+                .from(member)
+                .where(
+                        afterId != null ? member.id.gt(afterId) : null,
+                        usernameEq(condition.getUsername()),
+                        teamNameIn(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * fromId ~ toId 범위의 대상 회원을 보관 테이블로 복사한다. (insert ... select)
+     * HQL insert 의 select 절에는 파라미터를 쓸 수 없으므로 작업 id 와 보관 시각은 update 로 채운다.
+     */
+    public long copy(Long jobId, MemberSearchCondition condition, Long fromId, Long toId) {
+        long copied = queryFactory
+                .insert(memberArchive)
+                .columns(memberArchive.id, memberArchive.name, memberArchive.age, memberArchive.teamId)
+                .select(JPAExpressions
+                        .select(member.id, member.name, member.age, member.team.id)
+                        .from(member)
+                        .where(
+                                member.id.between(fromId, toId),
+                                usernameEq(condition.getUsername()),
+                                teamNameIn(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        ))
+                .execute();
+
+        queryFactory
+                .update(memberArchive)
+                .set(memberArchive.jobId, jobId)
+                .set(memberArchive.archivedAt, LocalDateTime.now())
+                .where(memberArchive.id.between(fromId, toId), memberArchive.jobId.isNull())
+                .execute();
+        return copied;
+    }
+
+    /**
+     * fromId ~ toId 범위에서 이 작업이 보관한 회원만 지운다.
+     */
+    public long deleteArchived(Long jobId, Long fromId, Long toId) {
+        return queryFactory
+                .delete(member)
+                .where(
+                        member.id.between(fromId, toId),
+                        member.id.in(JPAExpressions
+                                .select(memberArchive.id)
+                                .from(memberArchive)
+                                .where(memberArchive.jobId.eq(jobId), memberArchive.id.between(fromId, toId)))
+                )
+                .execute();
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.name.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameIn(String teamName) {
+        return hasText(teamName) ? member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.eq(teamName))) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition 별 count 쿼리 결과 캐시
+ * TTL 이 지나거나 Member, Team 이 변경되면(MemberChangeListener) 다시 조회한다.
+ * 최대 크기를 넘으면 가장 오래 사용하지 않은 조건부터 제거한다.
+ *
+ * 읽기/쓰기 트랜잭션 안에서는 캐시를 쓰지 않는다.
+ * 그 트랜잭션이 flush 한 (아직 커밋되지 않은) 변경이 count 에 섞여 있을 수 있고, 롤백되면 캐시를 비울 이벤트가 없다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final long ttlNanos;
+    private final Map<List<Object>, Entry> entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private long generation;
+
+    public MemberCountCache(@Value("${member.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.count-cache.max-size:1000}") int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return countQuery.getAsLong();
+        }
+        List<Object> key = normalize(condition);
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+                hitCount.incrementAndGet();
+                return entry.count;
+            }
+            startGeneration = generation;
+        }
+
+        missCount.incrementAndGet();
+        long count = countQuery.getAsLong();
+
+        synchronized (this) {
+            //조회 중에 변경이 있었다면 캐시하지 않는다.
+            if (startGeneration == generation) {
+                entries.put(key, new Entry(count, System.nanoTime()));
+            }
+        }
+        return count;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private List<Object> normalize(MemberSearchCondition condition) {
+        return Arrays.asList(
+                hasText(condition.getUsername()) ? condition.getUsername() : null,
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe());
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long loadedAt;
+
+        private Entry(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
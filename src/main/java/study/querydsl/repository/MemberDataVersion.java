@@ -0,0 +1,31 @@
+package study.querydsl.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member, Team 데이터 버전 (조건부 GET 의 ETag 에 사용)
+ * 엔티티 변경(MemberChangeListener)과 벌크 연산에서 올리고, 읽기 모델(MemberReadModel)은 변경을 반영한 뒤에 다시 올린다.
+ *
+ * 카운터는 메모리에만 있으므로 서버를 띄울 때마다 만든 임의의 값을 앞에 붙여서, 재시작 전에 받은 ETag 와 겹치지 않게 한다.
+ * 다른 서버의 변경은 알 수 없으므로 서버가 여러 대면 공유 저장소의 버전을 사용해야 한다.
+ */
+@Component
+public class MemberDataVersion {
+
+    private final String bootId = Long.toHexString(new SecureRandom().nextLong());
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 서버 실행마다 다른 값 + 변경 횟수
+     */
+    public String get() {
+        return bootId + "." + version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * Member 엔티티 조회시 함께 읽을 연관관계
+ * count 쿼리는 CountQueryBuilder 가 fetch join 을 버리므로 계획과 상관없이 같다.
+ */
+public enum MemberFetchPlan {
+
+    /**
+     * member 만 조회 (team 은 지연 로딩)
+     */
+    MEMBER,
+
+    /**
+     * member + team 을 fetch join 으로 한번에 조회
+     */
+    MEMBER_TEAM,
+
+    /**
+     * member + team 을 fetch join 으로 조회한 뒤, 조회된 팀들의 members 를 한번 더 조회 (2번 조회)
+     * 컬렉션을 같은 쿼리에서 fetch join 하면 페이징이 메모리에서 일어나므로 나눠서 조회한다.
+     */
+    TEAM_MEMBERS;
+
+    /**
+     * member.team 을 team 별칭으로 left join 한다. (조건에서 team 을 쓸 수 있다)
+     */
+    public <T> JPAQuery<T> join(JPAQuery<T> query) {
+        query.leftJoin(member.team, team);
+        return this == MEMBER ? query : query.fetchJoin();
+    }
+
+    /**
+     * 조회된 회원에 계획의 나머지 연관관계를 채운다.
+     */
+    public List<Member> load(JPAQueryFactory queryFactory, List<Member> members) {
+        return load(queryFactory, members, false);
+    }
+
+    /**
+     * readOnly 면 팀과 members 도 읽기 전용으로 조회한다.
+     */
+    public List<Member> load(JPAQueryFactory queryFactory, List<Member> members, boolean readOnly) {
+        if (this != TEAM_MEMBERS) {
+            return members;
+        }
+        Set<Long> teamIds = new LinkedHashSet<>();
+        for (Member m : members) {
+            if (m.getTeam() != null) {
+                teamIds.add(m.getTeam().getId());
+            }
+        }
+        if (!teamIds.isEmpty()) {
+            //이미 영속성 컨텍스트에 있는 팀들의 members 컬렉션이 이 결과로 초기화된다.
+            QMember teamMember = new QMember("teamMember");
+            JPAQuery<Team> query = queryFactory
+                    .selectFrom(team)
+                    .leftJoin(team.members, teamMember).fetchJoin()
+                    .where(team.id.in(teamIds));
+            if (readOnly) {
+                query.setHint(QueryHints.READ_ONLY, true);
+            }
+            query.fetch();
+        }
+        return members;
+    }
+}
@@ -2,14 +2,18 @@ package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +22,7 @@ import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
     private final EntityManager em;
@@ -28,6 +33,7 @@ public class MemberJpaRepository {
         this.queryFactory = new JPAQueryFactory(em);
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -38,13 +44,28 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class)
-                .getResultList();
+        return findAll(false);
+    }
+
+    /**
+     * readOnly 면 조회한 엔티티를 읽기 전용으로 영속성 컨텍스트에 올린다.
+     * 변경 감지용 스냅샷을 만들지 않고 flush 때 검사하지도 않으므로, 읽기/쓰기 트랜잭션 안에서 많이 읽을 때 쓴다.
+     * (읽기 전용 트랜잭션에서는 이미 세션 전체가 읽기 전용이다) 읽기 전용 엔티티의 변경은 저장되지 않는다.
+     */
+    public List<Member> findAll(boolean readOnly) {
+        TypedQuery<Member> query = em.createQuery("select m from Member m", Member.class);
+        if (readOnly) {
+            query.setHint(QueryHints.READ_ONLY, true);
+        }
+        return query.getResultList();
     }
 
     public List<Member> findAll_querydsl() {
-        return queryFactory
-                .selectFrom(member)
+        return findAll_querydsl(false);
+    }
+
+    public List<Member> findAll_querydsl(boolean readOnly) {
+        return readOnly(queryFactory.selectFrom(member), readOnly)
                 .fetch();
     }
 
@@ -110,9 +131,15 @@ public class MemberJpaRepository {
     }
 
     public List<Member> searchMemberByWhereParam(MemberSearchCondition condition) {
-        return queryFactory
-                .selectFrom(member)
-                .leftJoin(member.team, team)
+        return searchMemberByWhereParam(condition, MemberFetchPlan.MEMBER);
+    }
+
+    public List<Member> searchMemberByWhereParam(MemberSearchCondition condition, MemberFetchPlan fetchPlan) {
+        return searchMemberByWhereParam(condition, fetchPlan, false);
+    }
+
+    public List<Member> searchMemberByWhereParam(MemberSearchCondition condition, MemberFetchPlan fetchPlan, boolean readOnly) {
+        List<Member> members = fetchPlan.join(readOnly(queryFactory.selectFrom(member), readOnly))
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -120,6 +147,14 @@ public class MemberJpaRepository {
                         ageLoe(condition.getAgeLoe())
                 )
                 .fetch();
+        return fetchPlan.load(queryFactory, members, readOnly);
+    }
+
+    /**
+     * false 일 때는 힌트를 넣지 않는다. (읽기 전용 트랜잭션의 세션 기본값을 덮어쓰지 않도록)
+     */
+    private static <T> JPAQuery<T> readOnly(JPAQuery<T> query, boolean readOnly) {
+        return readOnly ? query.setHint(QueryHints.READ_ONLY, true) : query;
     }
 
     private BooleanExpression usernameEq(String username) {
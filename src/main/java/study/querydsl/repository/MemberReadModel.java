@@ -0,0 +1,412 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.ReplicaRoutingDataSource;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberTeamDto 검색용 메모리 읽기 모델 (member.read-model.enabled=true 일 때만 사용)
+ * 시작할 때 전체를 읽어 오고, 이후에는 Member, Team 의 commit 이후 이벤트로 변경을 반영한다.
+ *
+ * 조회는 변경이 없는 스냅샷(Snapshot)에서 한다.
+ * 회원명, 팀명은 해시 인덱스, 나이는 정렬된 int[] 로 범위를 찾고 남은 조건은 후보를 걸러서 확인한다.
+ * 변경이 있으면 다음 조회 때 스냅샷을 다시 만든다. (쓰기가 드문 데이터를 가정한다)
+ * 스냅샷은 락 안에서 복사한 맵으로 락 밖에서 만들므로, 커밋 스레드(이벤트)는 스냅샷을 만드는 동안 기다리지 않는다.
+ * 벌크 연산(update, delete 쿼리)은 이벤트가 발생하지 않으므로 실행한 뒤 reload() 를 호출해야 한다.
+ *
+ * 변경을 맵에 반영한 뒤에 데이터 버전(MemberDataVersion)을 한 번 더 올린다.
+ * 커밋 때 올린 버전을 받은 조회가 반영 전의 데이터를 읽었더라도, 그 ETag 로는 304 를 받지 않는다.
+ *
+ * reload() 는 락 밖에서 조회하므로, 조회하는 동안 받은 이벤트는 기록해 두었다가 조회 결과로 바꾼 뒤에 다시 반영한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.read-model", name = "enabled", havingValue = "true")
+public class MemberReadModel implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberDataVersion memberDataVersion;
+    private final Object reloadLock = new Object();
+    private final Object snapshotLock = new Object();
+
+    private final Map<Long, MemberRow> members = new HashMap<>();
+    private final Map<Long, String> teamNames = new HashMap<>();
+    private List<Runnable> changesDuringReload;
+    private volatile long generation;
+    private volatile Snapshot snapshot;
+
+    public MemberReadModel(EntityManagerFactory entityManagerFactory, MemberDataVersion memberDataVersion) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.memberDataVersion = memberDataVersion;
+    }
+
+    @PostConstruct
+    public void init() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        reload();
+    }
+
+    /**
+     * DB 에서 전체를 다시 읽는다. replica 는 늦을 수 있으므로 primary 에서 읽는다.
+     */
+    public void reload() {
+        reload(() -> {
+        });
+    }
+
+    /**
+     * afterQuery 는 조회한 뒤, 조회 결과로 바꾸기 전에 실행한다. (테스트용)
+     */
+    void reload(Runnable afterQuery) {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                changesDuringReload = new ArrayList<>();
+            }
+            try {
+                ReplicaRoutingDataSource.runOnPrimary(() -> {
+                    EntityManager em = entityManagerFactory.createEntityManager();
+                    try {
+                        List<Object[]> teamRows = em.createQuery("select t.id, t.name from Team t", Object[].class).getResultList();
+                        List<Object[]> memberRows = em.createQuery("select m.id, m.name, m.age, m.team.id from Member m", Object[].class).getResultList();
+                        afterQuery.run();
+                        replace(teamRows, memberRows);
+                        log.info("Member read model loaded: {} members, {} teams", memberRows.size(), teamRows.size());
+                    } finally {
+                        em.close();
+                    }
+                });
+            } finally {
+                synchronized (this) {
+                    changesDuringReload = null;
+                }
+            }
+        }
+    }
+
+    private synchronized void replace(List<Object[]> teamRows, List<Object[]> memberRows) {
+        teamNames.clear();
+        for (Object[] row : teamRows) {
+            teamNames.put((Long) row[0], (String) row[1]);
+        }
+        members.clear();
+        for (Object[] row : memberRows) {
+            members.put((Long) row[0], new MemberRow((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3]));
+        }
+        //조회 결과에 빠졌을 수 있는 변경을 다시 반영한다. (이미 반영된 변경은 같은 값으로 덮어쓴다)
+        changesDuringReload.forEach(Runnable::run);
+        changesDuringReload.clear();
+        generation++;
+        memberDataVersion.bump();
+    }
+
+    /**
+     * 읽기/쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경을 볼 수 없으므로 DB 를 조회해야 한다.
+     */
+    public boolean canServe() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * MemberRepositoryCustom.search 와 같은 조건, memberId 순서로 반환한다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(condition, () -> {
+        });
+    }
+
+    /**
+     * afterCopy 는 스냅샷을 다시 만들 때 맵을 복사한 뒤, 스냅샷을 만들기 전에 실행한다. (테스트용)
+     */
+    List<MemberTeamDto> search(MemberSearchCondition condition, Runnable afterCopy) {
+        return currentSnapshot(afterCopy).search(condition);
+    }
+
+    public int size() {
+        return currentSnapshot(() -> {
+        }).rows.length;
+    }
+
+    /**
+     * 스냅샷을 만든 뒤에 변경이 있었으면 다시 만든다.
+     * 한 번에 한 스레드만 만들고, 기다리던 조회 스레드는 그 결과를 같이 쓴다.
+     */
+    private Snapshot currentSnapshot(Runnable afterCopy) {
+        Snapshot current = snapshot;
+        if (current != null && current.generation == generation) {
+            return current;
+        }
+        synchronized (snapshotLock) {
+            current = snapshot;
+            if (current != null && current.generation == generation) {
+                return current;
+            }
+            long copiedGeneration;
+            List<MemberRow> copiedMembers;
+            Map<Long, String> copiedTeamNames;
+            synchronized (this) {
+                copiedGeneration = generation;
+                copiedMembers = new ArrayList<>(members.values());
+                copiedTeamNames = new HashMap<>(teamNames);
+            }
+            afterCopy.run();
+            current = new Snapshot(copiedGeneration, copiedMembers, copiedTeamNames);
+            snapshot = current;
+            return current;
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity(), true);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    /**
+     * Hibernate 5 에서 abstract 로 남아 있는 이전 이름
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void changed(Object entity, boolean deleted) {
+        Runnable change = toChange(entity, deleted);
+        if (change == null) {
+            return;
+        }
+        synchronized (this) {
+            change.run();
+            if (changesDuringReload != null) {
+                changesDuringReload.add(change);
+            }
+            generation++;
+            memberDataVersion.bump();
+        }
+    }
+
+    /**
+     * 이벤트 시점의 값으로 맵을 바꾸는 작업 (reload 뒤에 다시 실행할 수 있도록 엔티티를 붙잡지 않는다)
+     */
+    private Runnable toChange(Object entity, boolean deleted) {
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            Long id = member.getId();
+            if (deleted) {
+                return () -> members.remove(id);
+            }
+            Long teamId = member.getTeam() != null ? member.getTeam().getId() : null;
+            MemberRow row = new MemberRow(id, member.getName(), member.getAge(), teamId);
+            return () -> members.put(id, row);
+        }
+        if (entity instanceof Team) {
+            Team team = (Team) entity;
+            Long id = team.getId();
+            if (deleted) {
+                return () -> teamNames.remove(id);
+            }
+            String name = team.getName();
+            return () -> teamNames.put(id, name);
+        }
+        return null;
+    }
+
+    private static class MemberRow {
+        private final Long id;
+        private final String name;
+        private final int age;
+        private final Long teamId;
+
+        private MemberRow(Long id, String name, int age, Long teamId) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+            this.teamId = teamId;
+        }
+    }
+
+    /**
+     * 나이 순으로 정렬된 row 와 인덱스 (만든 뒤에는 바꾸지 않는다)
+     */
+    private static class Snapshot {
+
+        private static final int[] EMPTY = new int[0];
+
+        private final long generation;
+        private final MemberTeamDto[] rows;
+        private final int[] ages;
+        private final Map<String, int[]> byName;
+        private final Map<String, int[]> byTeamName;
+
+        private Snapshot(long generation, Iterable<MemberRow> members, Map<Long, String> teamNames) {
+            this.generation = generation;
+            List<MemberTeamDto> sorted = new ArrayList<>();
+            for (MemberRow member : members) {
+                String teamName = member.teamId != null ? teamNames.get(member.teamId) : null;
+                Long teamId = teamName != null ? member.teamId : null;
+                sorted.add(new MemberTeamDto(member.id, member.name, member.age, teamId, teamName));
+            }
+            sorted.sort(Comparator.comparingInt(MemberTeamDto::getAge).thenComparing(MemberTeamDto::getMemberId));
+
+            rows = sorted.toArray(new MemberTeamDto[0]);
+            ages = new int[rows.length];
+            Map<String, List<Integer>> names = new HashMap<>();
+            Map<String, List<Integer>> teams = new HashMap<>();
+            for (int i = 0; i < rows.length; i++) {
+                ages[i] = rows[i].getAge();
+                if (rows[i].getUsername() != null) {
+                    names.computeIfAbsent(rows[i].getUsername(), k -> new ArrayList<>()).add(i);
+                }
+                if (rows[i].getTeamName() != null) {
+                    teams.computeIfAbsent(rows[i].getTeamName(), k -> new ArrayList<>()).add(i);
+                }
+            }
+            byName = toIndex(names);
+            byTeamName = toIndex(teams);
+        }
+
+        private List<MemberTeamDto> search(MemberSearchCondition condition) {
+            String username = hasText(condition.getUsername()) ? condition.getUsername() : null;
+            String teamName = hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+            int from = condition.getAgeGoe() != null ? lowerBound(condition.getAgeGoe()) : 0;
+            int to = condition.getAgeLoe() != null ? upperBound(condition.getAgeLoe()) : rows.length;
+
+            //가장 작은 후보 집합에서 시작한다.
+            int[] candidates = null;
+            if (username != null) {
+                candidates = byName.getOrDefault(username, EMPTY);
+            }
+            if (teamName != null) {
+                int[] team = byTeamName.getOrDefault(teamName, EMPTY);
+                if (candidates == null || team.length < candidates.length) {
+                    candidates = team;
+                }
+            }
+
+            List<MemberTeamDto> result = new ArrayList<>();
+            if (candidates == null || candidates.length > to - from) {
+                for (int i = from; i < to; i++) {
+                    addIfMatches(result, i, username, teamName, from, to);
+                }
+            } else {
+                for (int i : candidates) {
+                    addIfMatches(result, i, username, teamName, from, to);
+                }
+            }
+            result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            return result;
+        }
+
+        private void addIfMatches(List<MemberTeamDto> result, int i, String username, String teamName, int from, int to) {
+            MemberTeamDto row = rows[i];
+            if (i < from || i >= to
+                    || (username != null && !username.equals(row.getUsername()))
+                    || (teamName != null && !teamName.equals(row.getTeamName()))) {
+                return;
+            }
+            //스냅샷의 row 는 공유되므로 복사해서 돌려준다.
+            result.add(new MemberTeamDto(row.getMemberId(), row.getUsername(), row.getAge(), row.getTeamId(), row.getTeamName()));
+        }
+
+        /**
+         * ages[i] >= age 인 첫 위치
+         */
+        private int lowerBound(int age) {
+            int low = 0;
+            int high = ages.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ages[mid] < age) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * ages[i] > age 인 첫 위치
+         */
+        private int upperBound(int age) {
+            int low = 0;
+            int high = ages.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ages[mid] <= age) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static Map<String, int[]> toIndex(Map<String, List<Integer>> positions) {
+            Map<String, int[]> index = new HashMap<>(positions.size() * 2);
+            positions.forEach((key, list) -> index.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+            return index;
+        }
+    }
+}
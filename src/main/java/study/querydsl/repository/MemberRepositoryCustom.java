@@ -2,10 +2,15 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.BulkUpdateResult;
+import study.querydsl.repository.support.KeysetSlice;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
@@ -14,4 +19,16 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    Slice<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, PagingStrategy strategy);
+
+    Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize);
+
+    KeysetSlice<MemberTeamDto> searchKeyset(MemberSearchCondition condition, String cursor, Pageable pageable);
+
+    BulkUpdateResult bulkAddAge(MemberSearchCondition condition, int amount, Consumer<BulkUpdateResult> progress);
+
+    BulkUpdateResult bulkUpdateName(MemberSearchCondition condition, String name, Consumer<BulkUpdateResult> progress);
 }
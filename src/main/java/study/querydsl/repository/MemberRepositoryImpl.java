@@ -1,33 +1,73 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Order;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.SqlFunctionContributor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkUpdateResult;
+import study.querydsl.repository.support.ChunkedBulkExecutor;
+import study.querydsl.repository.support.ConcurrentCountExecutor;
+import study.querydsl.repository.support.KeysetOrder;
+import study.querydsl.repository.support.KeysetSlice;
+import study.querydsl.repository.support.UnsupportedKeysetSortException;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl /*extends QuerydslRepositorySupport*/ implements MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache memberCountCache;
+    private final MemberSearchQueryCache memberSearchQueryCache;
+    private final ConcurrentCountExecutor concurrentCountExecutor;
+    private final ChunkedBulkExecutor chunkedBulkExecutor;
+    private final MemberDataVersion memberDataVersion;
+    private final MemberReadModel memberReadModel;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache memberCountCache, MemberSearchQueryCache memberSearchQueryCache,
+                                ConcurrentCountExecutor concurrentCountExecutor, ChunkedBulkExecutor chunkedBulkExecutor,
+                                MemberDataVersion memberDataVersion, ObjectProvider<MemberReadModel> memberReadModel) {
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberCountCache = memberCountCache;
+        this.memberSearchQueryCache = memberSearchQueryCache;
+        this.concurrentCountExecutor = concurrentCountExecutor;
+        this.chunkedBulkExecutor = chunkedBulkExecutor;
+        this.memberDataVersion = memberDataVersion;
+        this.memberReadModel = memberReadModel.getIfAvailable();
     }
 
     /*public MemberRepositoryImpl(EntityManager em) {
@@ -35,24 +75,16 @@ public class MemberRepositoryImpl /*extends QuerydslRepositorySupport*/ implemen
         this.queryFactory = new JPAQueryFactory(em);
     }*/
 
+    /**
+     * 읽기 모델(MemberReadModel)이 켜져 있으면 읽기/쓰기 트랜잭션 밖에서는 DB 대신 읽기 모델에서 조회한다.
+     */
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.name.as("username"),
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        if (memberReadModel != null && memberReadModel.canServe()) {
+            return memberReadModel.search(condition);
+        }
+        return memberSearchQueryCache.search(em, condition);
     }
 
     @Override
@@ -141,9 +173,249 @@ public class MemberRepositoryImpl /*extends QuerydslRepositorySupport*/ implemen
                 );
 
         //return new PageImpl<>(content, pageable, total);
+        return PageableExecutionUtils.getPage(content, pageable, () -> memberCountCache.get(condition, countQuery::fetchOne));
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> rows = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.name.as("username"),
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<MemberTeamDto> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, PagingStrategy strategy) {
+        switch (strategy) {
+            case WINDOW:
+                return searchPageWindow(condition, pageable);
+            case COUNT_FREE:
+                return searchSlice(condition, pageable);
+            case CONCURRENT_COUNT:
+                return searchPageConcurrentCount(condition, pageable);
+            default:
+                return searchPageComplex(condition, pageable);
+        }
+    }
+
+    /**
+     * count 쿼리를 content 쿼리와 동시에 실행한다. count 캐시는 사용하지 않는다.
+     */
+    private Page<MemberTeamDto> searchPageConcurrentCount(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.name.as("username"),
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
+
+        return concurrentCountExecutor.getPage(pageable, contentQuery::fetch, countQuery);
+    }
+
+    private Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        QMemberTeamDto memberTeamDto = new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.name.as("username"),
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+        NumberExpression<Long> totalCount = Expressions.numberTemplate(Long.class, SqlFunctionContributor.COUNT_OVER + "()");
+
+        List<Tuple> rows = queryFactory
+                .select(memberTeamDto, totalCount)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<MemberTeamDto> content = rows.stream()
+                .map(row -> row.get(memberTeamDto))
+                .collect(Collectors.toList());
+
+        if (!rows.isEmpty()) {
+            return new PageImpl<>(content, pageable, rows.get(0).get(totalCount));
+        }
+
+        //offset 이 전체 건수를 넘으면 row 가 없어서 전체 건수를 알 수 없다.
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
         return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
     }
 
+    /**
+     * forward-only 커서로 fetchSize 만큼씩 읽어오는 스트림 조회
+     * 트랜잭션 안에서 사용하고, 사용 후 반드시 close 해야 한다.
+     */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.name.as("username"),
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .stream();
+    }
+
+    @Override
+    public KeysetSlice<MemberTeamDto> searchKeyset(MemberSearchCondition condition, String cursor, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.name.as("username"),
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
+
+        return keysetOrder(pageable.getSort()).fetch(query, cursor, pageable.getPageSize());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkUpdateResult bulkAddAge(MemberSearchCondition condition, int amount, Consumer<BulkUpdateResult> progress) {
+        return bulkUpdate(condition, update -> update.set(member.age, member.age.add(amount)), progress);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkUpdateResult bulkUpdateName(MemberSearchCondition condition, String name, Consumer<BulkUpdateResult> progress) {
+        return bulkUpdate(condition, update -> update.set(member.name, name), progress);
+    }
+
+    /**
+     * id 순서의 청크마다 별도 트랜잭션으로 update 한다. (ChunkedBulkExecutor)
+     * update 쿼리는 join 을 쓸 수 없으므로 팀명 조건은 서브쿼리로 바꾼다.
+     */
+    private BulkUpdateResult bulkUpdate(MemberSearchCondition condition, Consumer<JPAUpdateClause> set, Consumer<BulkUpdateResult> progress) {
+        BulkUpdateResult result = chunkedBulkExecutor.execute(Member.class,
+                (afterId, limit) -> queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .where(
+                                afterId != null ? member.id.gt(afterId) : null,
+                                usernameEq(condition.getUsername()),
+                                teamNameIn(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+                        .orderBy(member.id.asc())
+                        .limit(limit)
+                        .fetch(),
+                (fromId, toId) -> {
+                    JPAUpdateClause update = queryFactory
+                            .update(member)
+                            .where(
+                                    member.id.between(fromId, toId),
+                                    usernameEq(condition.getUsername()),
+                                    teamNameIn(condition.getTeamName()),
+                                    ageGoe(condition.getAgeGoe()),
+                                    ageLoe(condition.getAgeLoe())
+                            );
+                    set.accept(update);
+                    return update.execute();
+                },
+                chunk -> {
+                    //벌크 연산은 이벤트가 발생하지 않으므로 count 캐시를 직접 비우고 데이터 버전을 올린다.
+                    memberCountCache.invalidateAll();
+                    memberDataVersion.bump();
+                    progress.accept(chunk);
+                });
+
+        if (memberReadModel != null) {
+            memberReadModel.reload();
+        }
+        return result;
+    }
+
+    private KeysetOrder<MemberTeamDto> keysetOrder(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("memberId"));
+        Order direction = order.isAscending() ? Order.ASC : Order.DESC;
+        switch (order.getProperty()) {
+            case "memberId":
+                return KeysetOrder.of(direction, member.id, MemberTeamDto::getMemberId, member.id, MemberTeamDto::getMemberId);
+            case "username":
+                return KeysetOrder.of(direction, member.name, MemberTeamDto::getUsername, member.id, MemberTeamDto::getMemberId);
+            case "age":
+                return KeysetOrder.of(direction, member.age, MemberTeamDto::getAge, member.id, MemberTeamDto::getMemberId);
+            default:
+                throw new UnsupportedKeysetSortException(order.getProperty());
+        }
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.name.eq(username) : null;
     }
@@ -152,6 +424,10 @@ public class MemberRepositoryImpl /*extends QuerydslRepositorySupport*/ implemen
         return hasText(teamName) ? team.name.eq(teamName) : null;
     }
 
+    private BooleanExpression teamNameIn(String teamName) {
+        return hasText(teamName) ? member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.eq(teamName))) : null;
+    }
+
     private BooleanExpression ageGoe(Integer ageGoe) {
         return ageGoe != null ? member.age.goe(ageGoe) : null;
     }
@@ -0,0 +1,141 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 검색 쿼리를 조건 조합(shape) 별로 한번만 JPQL 로 만들어 두고 재사용한다.
+ * 조건 필드가 4개라서 shape 는 16개뿐이고, 요청마다 파라미터 값만 바인딩한다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final Param<String> usernameParam = new Param<>(String.class, "username");
+    private static final Param<String> teamNameParam = new Param<>(String.class, "teamName");
+    private static final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+
+    private final AtomicReferenceArray<CompiledQuery> shapes = new AtomicReferenceArray<>(16);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public List<MemberTeamDto> search(EntityManager em, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        CompiledQuery compiled = shapes.get(shape);
+        if (compiled != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+            compiled = compile(em, shape);
+            if (!shapes.compareAndSet(shape, null, compiled)) {
+                compiled = shapes.get(shape);
+            }
+        }
+        return compiled.execute(em, condition);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    private CompiledQuery compile(EntityManager em, int shape) {
+        QMemberTeamDto projection = new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.name.as("username"),
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+
+        JPAQuery<MemberTeamDto> query = new JPAQuery<>(em)
+                .select(projection)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        (shape & USERNAME) != 0 ? member.name.eq(usernameParam) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(teamNameParam) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(ageGoeParam) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(ageLoeParam) : null
+                );
+
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new CompiledQuery(serializer.toString(), new ArrayList<>(serializer.getConstants()), projection);
+    }
+
+    private static class CompiledQuery {
+        private final String jpql;
+        private final List<Object> constants;
+        private final QMemberTeamDto projection;
+
+        private CompiledQuery(String jpql, List<Object> constants, QMemberTeamDto projection) {
+            this.jpql = jpql;
+            this.constants = constants;
+            this.projection = projection;
+        }
+
+        private List<MemberTeamDto> execute(EntityManager em, MemberSearchCondition condition) {
+            Map<ParamExpression<?>, Object> params = new HashMap<>();
+            params.put(usernameParam, condition.getUsername());
+            params.put(teamNameParam, condition.getTeamName());
+            params.put(ageGoeParam, condition.getAgeGoe());
+            params.put(ageLoeParam, condition.getAgeLoe());
+
+            Query query = em.createQuery(jpql);
+            JPAUtil.setConstants(query, constants, params);
+
+            List<?> rows = query.getResultList();
+            List<MemberTeamDto> result = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                result.add(projection.newInstance((Object[]) row));
+            }
+            return result;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Order;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.KeysetOrder;
+import study.querydsl.repository.support.KeysetSlice;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
@@ -35,6 +40,11 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                 .fetch();
     }
 
+    public List<Member> basicSelectFromReadOnly() {
+        return selectFromReadOnly(member)
+                .fetch();
+    }
+
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
         JPAQuery<Member> query = selectFrom(member)
                 .leftJoin(member.team, team)
@@ -49,14 +59,23 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
-        return applyPagination(pageable, contentQuery -> contentQuery
-                .selectFrom(member)
-                .leftJoin(member.team, team)
+        return applyPagination(condition, pageable, MemberFetchPlan.MEMBER);
+    }
+
+    /**
+     * count 쿼리는 content 쿼리에서 유도하므로 fetch join 이 빠진다. (CountQueryBuilder)
+     * fetchPlan 이 나눠서 채운 연관관계가 같은 영속성 컨텍스트에 남도록 한 트랜잭션에서 조회한다.
+     */
+    @Transactional(readOnly = true)
+    public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable, MemberFetchPlan fetchPlan) {
+        Page<Member> page = applyPagination(pageable, contentQuery -> fetchPlan.join(contentQuery.selectFrom(member))
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())));
+        fetchPlan.load(getQueryFactory(), page.getContent());
+        return page;
     }
 
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
@@ -79,6 +98,50 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    public Page<Member> applyConcurrentPagination(MemberSearchCondition condition, Pageable pageable) {
+        return applyConcurrentPagination(pageable, contentQuery -> contentQuery
+                        .selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())),
+                countQuery -> countQuery
+                        .select(member.count())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe()))
+        );
+    }
+
+    public Slice<Member> applySlicing(MemberSearchCondition condition, Pageable pageable) {
+        return applySlicing(pageable, contentQuery -> contentQuery
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())));
+    }
+
+    public KeysetSlice<Member> applyKeyset(MemberSearchCondition condition, String cursor, int size) {
+        KeysetOrder<Member> order = KeysetOrder.of(Order.ASC, member.age, Member::getAge, member.id, Member::getId);
+        return applyKeyset(order, cursor, size, contentQuery -> contentQuery
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())));
+    }
+
     private BooleanExpression usernameEq(String username) {
         return isEmpty(username) ? null : member.name.eq(username);
     }
@@ -0,0 +1,28 @@
+package study.querydsl.repository;
+
+/**
+ * 페이징 조회시 전체 건수를 구하는 방법
+ */
+public enum PagingStrategy {
+
+    /**
+     * content 쿼리 + count 쿼리 (2번 조회)
+     */
+    TWO_QUERY,
+
+    /**
+     * content 쿼리에 count(*) over() 를 같이 조회 (1번 조회)
+     */
+    WINDOW,
+
+    /**
+     * 전체 건수 없이 pageSize + 1 건을 조회해서 다음 페이지 여부만 확인 (Slice)
+     */
+    COUNT_FREE,
+
+    /**
+     * content 쿼리와 count 쿼리를 서로 다른 커넥션에서 동시에 실행 (ConcurrentCountExecutor)
+     * 읽기/쓰기 트랜잭션 안에서는 TWO_QUERY 처럼 순서대로 실행한다.
+     */
+    CONCURRENT_COUNT
+}
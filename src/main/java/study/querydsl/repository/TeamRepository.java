@@ -0,0 +1,28 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    String BY_NAME_REGION = "team-by-name";
+
+    /**
+     * 팀 이름 조회는 쿼리 캐시(team-by-name 리전)를 사용한다.
+     * Team 이 변경되면 Hibernate 가 결과를 무효화한다.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = TeamRepository.BY_NAME_REGION)
+    })
+    Optional<Team> findByName(String name);
+}
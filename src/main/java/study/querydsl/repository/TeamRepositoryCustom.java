@@ -0,0 +1,11 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.TeamRosterDto;
+
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+
+    List<TeamRosterDto> findRosters(Pageable pageable);
+}
@@ -0,0 +1,64 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.TeamRosterDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Transactional(readOnly = true)
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamRepositoryImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    /**
+     * 팀 목록과 소속 회원을 팀 수와 상관없이 쿼리 2번으로 조회한다.
+     * 팀을 페이징해서 조회하고, 소속 회원은 팀 id 목록으로 in 조회해서 팀별로 나눈다.
+     * (Team.members 를 지연 로딩하면 팀마다 쿼리가 1번씩 나간다)
+     */
+    @Override
+    public List<TeamRosterDto> findRosters(Pageable pageable) {
+        Map<Long, TeamRosterDto> rosters = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(row -> row.get(team.id), row -> new TeamRosterDto(row.get(team.id), row.get(team.name)),
+                        (a, b) -> a, LinkedHashMap::new));
+        if (rosters.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        QMemberDto memberDto = new QMemberDto(member.name, member.age);
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, memberDto)
+                .from(member)
+                .where(member.team.id.in(rosters.keySet()))
+                .orderBy(member.team.id.asc(), member.id.asc())
+                .fetch();
+        for (Tuple row : rows) {
+            MemberDto dto = row.get(memberDto);
+            rosters.get(row.get(member.team.id)).getMembers().add(dto);
+        }
+        return new ArrayList<>(rosters.values());
+    }
+}
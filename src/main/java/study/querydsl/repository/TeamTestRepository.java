@@ -0,0 +1,38 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
+
+import static org.aspectj.util.LangUtil.isEmpty;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+public class TeamTestRepository extends Querydsl4RepositorySupport {
+
+    public TeamTestRepository() {
+        super(Team.class);
+    }
+
+    /**
+     * 팀과 소속 회원(fetch join)을 페이징 조회한다.
+     */
+    public Page<Team> applyFetchJoinPagination(String teamNamePrefix, Pageable pageable) {
+        return applyFetchJoinPagination(pageable, team.id, Team::getId,
+                rootQuery -> rootQuery
+                        .from(team)
+                        .where(teamNameStartsWith(teamNamePrefix)),
+                (fetchQuery, ids) -> fetchQuery
+                        .selectFrom(team)
+                        .leftJoin(team.members, member).fetchJoin()
+                        .where(team.id.in(ids)));
+    }
+
+    private BooleanExpression teamNameStartsWith(String teamNamePrefix) {
+        return isEmpty(teamNamePrefix) ? null : team.name.startsWith(teamNamePrefix);
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 청크 단위 벌크 연산의 진행 상황 (마지막 결과가 전체 결과)
+ * 중간에 인터럽트되면 completed 가 false 이고, lastId 다음부터 다시 실행하면 된다.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkUpdateResult {
+
+    private final int chunks;
+    private final long rowsAffected;
+    private final Long lastId;
+    private final boolean completed;
+}
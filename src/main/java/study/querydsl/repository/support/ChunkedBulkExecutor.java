@@ -0,0 +1,157 @@
+package study.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 벌크 update, delete 를 id 순서의 청크로 나눠서 청크마다 별도 트랜잭션으로 실행한다.
+ * 한 번에 잠그는 row 를 청크 크기로 제한하고, 청크 사이에 throttle 만큼 쉬어서 다른 트랜잭션이 끼어들 수 있게 한다.
+ *
+ * 호출한 쪽의 트랜잭션이 있으면 그 영속성 컨텍스트에서 변경된 엔티티만 detach 한다. (em.clear() 대신)
+ * 청크는 다른 커넥션에서 실행되므로 호출한 트랜잭션이 수정한 row 는 대상이 되면 안 된다. (락 대기)
+ */
+@Slf4j
+@Component
+public class ChunkedBulkExecutor {
+
+    private final EntityManager em;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final Duration throttle;
+
+    public ChunkedBulkExecutor(EntityManager em, PlatformTransactionManager transactionManager,
+                               @Value("${member.bulk.chunk-size:1000}") int chunkSize,
+                               @Value("${member.bulk.throttle:0ms}") Duration throttle) {
+        this.em = em;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.throttle = throttle;
+    }
+
+    /**
+     * 다음 청크의 id 목록 (afterId 보다 큰 id 를 오름차순으로 limit 건, 처음에는 afterId 가 null)
+     */
+    public interface ChunkIds {
+        List<Long> next(Long afterId, int limit);
+    }
+
+    /**
+     * fromId ~ toId 범위의 청크를 변경하고 변경된 row 수를 반환한다.
+     */
+    public interface ChunkUpdate {
+        long execute(Long fromId, Long toId);
+    }
+
+    public BulkUpdateResult execute(Class<?> entityClass, ChunkIds chunkIds, ChunkUpdate chunkUpdate, Consumer<BulkUpdateResult> progress) {
+        return execute(entityClass, null, chunkSize, 0, chunkIds, chunkUpdate, progress);
+    }
+
+    /**
+     * startAfterId 다음부터 실행한다. (체크포인트에서 이어서 실행)
+     * rowsPerSecond 가 0 보다 크면 고정된 throttle 대신 초당 처리 건수가 목표를 넘지 않도록 청크 사이에 쉰다.
+     */
+    public BulkUpdateResult execute(Class<?> entityClass, Long startAfterId, int chunkSize, long rowsPerSecond,
+                                    ChunkIds chunkIds, ChunkUpdate chunkUpdate, Consumer<BulkUpdateResult> progress) {
+        int chunks = 0;
+        long rowsAffected = 0;
+        Long lastId = startAfterId;
+
+        while (true) {
+            long startNanos = System.nanoTime();
+            Long afterId = lastId;
+            Chunk chunk = chunkTransaction.execute(status -> {
+                List<Long> ids = chunkIds.next(afterId, chunkSize);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                Long fromId = ids.get(0);
+                Long toId = ids.get(ids.size() - 1);
+                return new Chunk(ids, chunkUpdate.execute(fromId, toId));
+            });
+            if (chunk == null) {
+                break;
+            }
+
+            chunks++;
+            rowsAffected += chunk.rows;
+            lastId = chunk.ids.get(chunk.ids.size() - 1);
+            detach(entityClass, chunk.ids);
+
+            BulkUpdateResult result = new BulkUpdateResult(chunks, rowsAffected, lastId, false);
+            log.debug("Bulk {} chunk {}: {} rows (total {}), lastId={}", entityClass.getSimpleName(), chunks, chunk.rows, rowsAffected, lastId);
+            progress.accept(result);
+
+            if (chunk.ids.size() < chunkSize) {
+                break;
+            }
+            if (!pause(pauseMillis(chunk.rows, System.nanoTime() - startNanos, rowsPerSecond))) {
+                log.info("Bulk {} interrupted after {} chunks, lastId={}", entityClass.getSimpleName(), chunks, lastId);
+                return result;
+            }
+        }
+
+        log.info("Bulk {} finished: {} chunks, {} rows", entityClass.getSimpleName(), chunks, rowsAffected);
+        return new BulkUpdateResult(chunks, rowsAffected, lastId, true);
+    }
+
+    /**
+     * 호출한 트랜잭션의 영속성 컨텍스트에 이미 있는 엔티티만 detach 한다.
+     * 트랜잭션 밖에서는 영속성 컨텍스트가 유지되지 않으므로 할 일이 없다.
+     */
+    private void detach(Class<?> entityClass, List<Long> ids) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityClass);
+        for (Long id : ids) {
+            Object entity = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+            if (entity != null) {
+                session.detach(entity);
+            }
+        }
+    }
+
+    private long pauseMillis(long rows, long elapsedNanos, long rowsPerSecond) {
+        if (rowsPerSecond <= 0) {
+            return throttle.toMillis();
+        }
+        return rows * 1000 / rowsPerSecond - elapsedNanos / 1_000_000;
+    }
+
+    private boolean pause(long millis) {
+        if (millis <= 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static class Chunk {
+        private final List<Long> ids;
+        private final long rows;
+
+        private Chunk(List<Long> ids, long rows) {
+            this.ids = ids;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 조회의 count 쿼리를 별도 커넥션에서 content 쿼리와 동시에 실행한다.
+ * count 쿼리는 공유 EntityManager 로 만들어야 작업 스레드의 트랜잭션(EntityManager)에서 실행된다.
+ *
+ * 읽기/쓰기 트랜잭션 안에서는 다른 커넥션이 아직 커밋되지 않은 변경을 볼 수 없으므로 순서대로 실행하고,
+ * 작업 큐가 가득 차도 순서대로 실행한다.
+ *
+ * 요청 스레드는 커넥션을 잡은 채 count 를 기다리므로, 작업 스레드가 아직 count 를 시작하지 않았으면 기다리지 않고
+ * 요청 스레드가 자기 커넥션으로 직접 센다. 그래서 동시에 커넥션을 더 쓰는 요청은 pool-size 개를 넘지 않고,
+ * 커넥션 풀(maximum-pool-size)이 pool-size 보다 크면 서로 커넥션을 기다리다 멈추지 않는다.
+ * 필요 없어진 count 는 작업 스레드를 interrupt 해서 취소하고, 끝나지 않는 count 는 query-timeout 으로 끊는다.
+ */
+@Slf4j
+@Component
+public class ConcurrentCountExecutor implements DisposableBean {
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolTaskExecutor executor;
+    private final int queryTimeoutMillis;
+
+    private final AtomicLong concurrent = new AtomicLong();
+    private final AtomicLong serial = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public ConcurrentCountExecutor(PlatformTransactionManager transactionManager,
+                                   @Value("${member.concurrent-count.pool-size:4}") int poolSize,
+                                   @Value("${member.concurrent-count.queue-capacity:64}") int queueCapacity,
+                                   @Value("${member.concurrent-count.query-timeout:5s}") Duration queryTimeout) {
+        this.queryTimeoutMillis = (int) queryTimeout.toMillis();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(poolSize);
+        this.executor.setMaxPoolSize(poolSize);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setAllowCoreThreadTimeOut(true);
+        this.executor.setThreadNamePrefix("count-query-");
+        this.executor.initialize();
+    }
+
+    public <T> Page<T> getPage(Pageable pageable, Supplier<List<T>> contentQuery, JPAQuery<Long> countQuery) {
+        if (!canRunConcurrently()) {
+            serial.incrementAndGet();
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery::fetchOne);
+        }
+
+        CountTask total = new CountTask(countQuery);
+        try {
+            executor.execute(total);
+        } catch (RejectedExecutionException e) {
+            log.debug("Count executor saturated, running count query serially");
+            serial.incrementAndGet();
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery::fetchOne);
+        }
+        concurrent.incrementAndGet();
+
+        try {
+            List<T> content = contentQuery.get();
+            return PageableExecutionUtils.getPage(content, pageable, () -> join(total, countQuery));
+        } finally {
+            //content 만으로 전체 건수를 알 수 있으면 count 결과를 기다리지 않는다.
+            if (total.abandon()) {
+                skipped.incrementAndGet();
+            }
+        }
+    }
+
+    public long getConcurrentCount() {
+        return concurrent.get();
+    }
+
+    public long getSerialCount() {
+        return serial.get();
+    }
+
+    /**
+     * 작업 스레드가 시작하지 못해서 요청 스레드가 직접 센 횟수
+     */
+    public long getReclaimedCount() {
+        return reclaimed.get();
+    }
+
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    private static boolean canRunConcurrently() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private long join(CountTask total, JPAQuery<Long> countQuery) {
+        if (total.reclaim()) {
+            reclaimed.incrementAndGet();
+            return countQuery.fetchOne();
+        }
+        try {
+            return total.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            total.abandon();
+            throw new IllegalStateException("Interrupted while waiting for count query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 작업 스레드와 요청 스레드 중 먼저 claim 한 쪽만 count 를 실행한다.
+     */
+    private class CountTask extends FutureTask<Long> {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        CountTask(JPAQuery<Long> countQuery) {
+            super(() -> readOnlyTransaction.execute(status -> countQuery
+                    .setHint(QueryHints.TIMEOUT_JPA, queryTimeoutMillis)
+                    .fetchOne()));
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                super.run();
+            }
+        }
+
+        /**
+         * 작업 스레드가 아직 시작하지 않았으면 요청 스레드가 가져간다. 가져왔으면 true
+         */
+        boolean reclaim() {
+            if (claimed.compareAndSet(false, true)) {
+                cancel(false);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 시작하지 않았으면 실행되지 않게 하고, 실행 중이면 interrupt 한다. 취소했으면 true
+         */
+        boolean abandon() {
+            return reclaim() || cancel(true);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,127 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.support.PathsExtractor;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * content 쿼리의 메타데이터로 가벼운 count 쿼리를 만든다.
+ * - order by, fetch join, limit/offset 은 버린다.
+ * - 어떤 조건에서도 참조하지 않는 left join 은 뺀다.
+ * - to-many 조인이 남아 있을 때만 count(distinct root) 를 쓴다.
+ * group by, having, distinct 가 있는 쿼리는 JPQL 로 count 를 만들 수 없으므로 지원하지 않는다.
+ */
+public final class CountQueryBuilder {
+
+    private CountQueryBuilder() {
+    }
+
+    public static boolean supports(JPAQuery<?> contentQuery) {
+        QueryMetadata metadata = contentQuery.getMetadata();
+        return metadata.getGroupBy().isEmpty()
+                && metadata.getHaving() == null
+                && !metadata.isDistinct()
+                && !metadata.getJoins().isEmpty();
+    }
+
+    public static JPAQuery<Long> build(EntityManager em, JPAQuery<?> contentQuery) {
+        if (!supports(contentQuery)) {
+            throw new IllegalArgumentException("Count query can not be derived from grouped or distinct query");
+        }
+
+        QueryMetadata metadata = contentQuery.getMetadata();
+        List<JoinExpression> joins = metadata.getJoins();
+
+        Set<Expression<?>> referenced = new HashSet<>();
+        addRoots(metadata.getWhere(), referenced);
+
+        //뒤에서부터 훑으면서 참조되지 않는 left join 을 버린다.
+        List<JoinExpression> kept = new ArrayList<>();
+        for (int i = joins.size() - 1; i > 0; i--) {
+            JoinExpression join = joins.get(i);
+            Path<?> alias = alias(join.getTarget());
+            if (join.getType() == JoinType.LEFTJOIN && alias != null && !referenced.contains(alias)) {
+                continue;
+            }
+            kept.add(join);
+            addRoots(join.getTarget(), referenced);
+            addRoots(join.getCondition(), referenced);
+        }
+        kept.add(joins.get(0));
+        Collections.reverse(kept);
+
+        boolean toMany = false;
+        DefaultQueryMetadata countMetadata = new DefaultQueryMetadata();
+        for (JoinExpression join : kept) {
+            countMetadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                countMetadata.addJoinCondition(join.getCondition());
+            }
+            toMany |= isToMany(join.getTarget());
+        }
+        if (metadata.getWhere() != null) {
+            countMetadata.addWhere(metadata.getWhere());
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : metadata.getParams().entrySet()) {
+            copyParam(countMetadata, param.getKey(), param.getValue());
+        }
+
+        Expression<?> root = root(joins.get(0).getTarget());
+        countMetadata.setProjection(Expressions.numberOperation(Long.class,
+                toMany ? Ops.AggOps.COUNT_DISTINCT_AGG : Ops.AggOps.COUNT_AGG, root));
+        return new JPAQuery<>(em, countMetadata);
+    }
+
+    private static <T> void copyParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, param.getType().cast(value));
+    }
+
+    private static void addRoots(Expression<?> expression, Set<Expression<?>> roots) {
+        if (expression == null) {
+            return;
+        }
+        List<Path<?>> paths = new ArrayList<>();
+        expression.accept(PathsExtractor.DEFAULT, paths);
+        for (Path<?> path : paths) {
+            roots.add(path.getRoot());
+        }
+    }
+
+    private static Path<?> alias(Expression<?> target) {
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return (Path<?>) ((Operation<?>) target).getArg(1);
+        }
+        return null;
+    }
+
+    private static Expression<?> root(Expression<?> target) {
+        Path<?> alias = alias(target);
+        return alias != null ? alias : target;
+    }
+
+    private static boolean isToMany(Expression<?> target) {
+        Expression<?> joined = target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS
+                ? ((Operation<?>) target).getArg(0)
+                : target;
+        return joined instanceof CollectionExpression || joined instanceof MapExpression;
+    }
+}
@@ -0,0 +1,173 @@
+package study.querydsl.repository.support;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * DTO 생성자, setter 를 LambdaMetafactory 로 만든 람다(Supplier, BiConsumer)로 바꿔서 캐시한다.
+ * 처음 한 번만 리플렉션으로 찾고, row 마다는 일반 메서드 호출과 같은 비용으로 값을 채운다.
+ * setter 가 없는 필드는 MethodHandle 로 값을 넣는다.
+ */
+final class DtoInstantiators {
+
+    interface Instantiator<T> {
+        T newInstance(Object[] args);
+    }
+
+    private static final Map<List<Object>, Instantiator<?>> CACHE = new ConcurrentHashMap<>();
+
+    private DtoInstantiators() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Instantiator<T> bean(Class<T> type, List<String> properties) {
+        List<Object> key = Arrays.asList(type, properties);
+        return (Instantiator<T>) CACHE.computeIfAbsent(key, k -> createBean(type, properties));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Instantiator<T> constructor(Class<T> type, List<Class<?>> parameterTypes) {
+        List<Object> key = Arrays.asList(type, parameterTypes, "<init>");
+        return (Instantiator<T>) CACHE.computeIfAbsent(key, k -> createConstructor(type, parameterTypes));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Instantiator<T> createBean(Class<T> type, List<String> properties) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle noArgs = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    noArgs,
+                    MethodType.methodType(type));
+            Supplier<T> factory = (Supplier<T>) site.getTarget().invokeExact();
+
+            List<BiConsumer<Object, Object>> setters = new ArrayList<>(properties.size());
+            for (String property : properties) {
+                setters.add(setter(lookup, type, property));
+            }
+
+            return args -> {
+                T bean = factory.get();
+                for (int i = 0; i < setters.size(); i++) {
+                    //QBean 처럼 null 은 건너뛴다. (primitive 필드)
+                    if (args[i] != null) {
+                        setters.get(i).accept(bean, args[i]);
+                    }
+                }
+                return bean;
+            };
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot create projection for " + type.getName() + " " + properties, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Class<?> type, String property) throws Throwable {
+        Method method = findSetter(type, property);
+        if (method != null) {
+            MethodHandle handle = lookup.unreflect(method);
+            Class<?> parameterType = method.getParameterTypes()[0];
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, type, box(parameterType)));
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        }
+
+        Field field = findField(type, property);
+        MethodHandle handle = lookup.unreflectSetter(field)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (bean, value) -> {
+            try {
+                handle.invokeExact(bean, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static <T> Instantiator<T> createConstructor(Class<T> type, List<Class<?>> parameterTypes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = findConstructor(lookup, type, parameterTypes)
+                    .asSpreader(Object[].class, parameterTypes.size())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return args -> {
+                try {
+                    return type.cast((Object) constructor.invokeExact(args));
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create projection for " + type.getName() + " " + parameterTypes, e);
+        }
+    }
+
+    /**
+     * 인자 타입이 같은 생성자를 먼저 찾고, 없으면 primitive / wrapper 차이만 있는 생성자를 찾는다.
+     */
+    private static MethodHandle findConstructor(MethodHandles.Lookup lookup, Class<?> type, List<Class<?>> parameterTypes) throws ReflectiveOperationException {
+        for (java.lang.reflect.Constructor<?> constructor : type.getDeclaredConstructors()) {
+            Class<?>[] declared = constructor.getParameterTypes();
+            if (declared.length != parameterTypes.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < declared.length && matches; i++) {
+                matches = box(declared[i]).isAssignableFrom(box(parameterTypes.get(i)));
+            }
+            if (matches) {
+                return lookup.unreflectConstructor(constructor);
+            }
+        }
+        throw new NoSuchMethodException(type.getName() + ".<init>" + parameterTypes);
+    }
+
+    private static Method findSetter(Class<?> type, String property) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> type, String property) throws NoSuchFieldException {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(property) && !Modifier.isStatic(field.getModifiers())) {
+                    return field;
+                }
+            }
+        }
+        throw new NoSuchFieldException(type.getName() + "." + property);
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
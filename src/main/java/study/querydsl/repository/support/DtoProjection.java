@@ -0,0 +1,78 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Projections.bean / fields / constructor 와 같은 방식으로 쓰지만 row 마다 리플렉션을 쓰지 않는 DTO 프로젝션
+ * DTO 에 @QueryProjection 이 없어도 되고, 별칭(member.name.as("username"))으로 프로퍼티를 지정할 수 있다.
+ */
+public class DtoProjection<T> extends FactoryExpressionBase<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Expression<?>> args;
+    private final DtoInstantiators.Instantiator<T> instantiator;
+
+    private DtoProjection(Class<T> type, List<Expression<?>> args, DtoInstantiators.Instantiator<T> instantiator) {
+        super(type);
+        this.args = args;
+        this.instantiator = instantiator;
+    }
+
+    /**
+     * 기본 생성자 + setter (setter 가 없으면 필드)
+     */
+    public static <T> DtoProjection<T> bean(Class<T> type, Expression<?>... exprs) {
+        List<String> properties = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            properties.add(propertyName(expr));
+        }
+        return new DtoProjection<>(type, Collections.unmodifiableList(Arrays.asList(exprs)), DtoInstantiators.bean(type, properties));
+    }
+
+    /**
+     * 인자 순서, 타입이 같은 생성자
+     */
+    public static <T> DtoProjection<T> constructor(Class<T> type, Expression<?>... exprs) {
+        List<Class<?>> parameterTypes = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            parameterTypes.add(expr.getType());
+        }
+        return new DtoProjection<>(type, Collections.unmodifiableList(Arrays.asList(exprs)), DtoInstantiators.constructor(type, parameterTypes));
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... a) {
+        return instantiator.newInstance(a);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            return propertyName(((Operation<?>) expr).getArg(1));
+        }
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr + ", use as(alias)");
+    }
+}
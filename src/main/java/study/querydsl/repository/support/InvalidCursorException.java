@@ -0,0 +1,17 @@
+package study.querydsl.repository.support;
+
+/**
+ * 디코딩할 수 없는 keyset 커서 (클라이언트가 보낸 값이므로 컨트롤러에서 400 으로 바꾼다)
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+    }
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("Invalid cursor: " + cursor, cause);
+    }
+}
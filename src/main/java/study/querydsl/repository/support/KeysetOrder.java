@@ -0,0 +1,130 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * (정렬 키, id) 기준 keyset(seek) 페이징
+ * offset 대신 마지막으로 읽은 (정렬 키, id) 다음부터 조회하므로 페이지가 깊어져도 앞의 row 를 읽고 버리지 않는다.
+ * 정렬 키는 String, Integer, Long 컬럼이어야 한다. null 키는 방향과 상관없이 맨 뒤에 두고 id 로만 이어서 읽는다.
+ *
+ * @param <T> 조회 결과 타입
+ */
+public class KeysetOrder<T> {
+
+    private final Order direction;
+    private final Expression<?> key;
+    private final OrderSpecifier<?> keyOrder;
+    private final Function<T, ?> keyOf;
+    private final Expression<Long> id;
+    private final Function<T, Long> idOf;
+
+    private KeysetOrder(Order direction, Expression<?> key, OrderSpecifier<?> keyOrder, Function<T, ?> keyOf,
+                        Expression<Long> id, Function<T, Long> idOf) {
+        this.direction = direction;
+        this.key = key;
+        this.keyOrder = keyOrder;
+        this.keyOf = keyOf;
+        this.id = id;
+        this.idOf = idOf;
+    }
+
+    public static <T, K extends Comparable<? super K>> KeysetOrder<T> of(Order direction,
+                                                                         Expression<K> key, Function<T, K> keyOf,
+                                                                         Expression<Long> id, Function<T, Long> idOf) {
+        Assert.notNull(direction, "Direction must not be null!");
+        Assert.notNull(key, "Key must not be null!");
+        Assert.notNull(id, "Id must not be null!");
+        return new KeysetOrder<>(direction, key, new OrderSpecifier<>(direction, key).nullsLast(), keyOf, id, idOf);
+    }
+
+    public KeysetSlice<T> fetch(JPAQuery<T> query, String cursor, int size) {
+        Assert.isTrue(size > 0, "Size must be greater than zero!");
+        if (hasText(cursor)) {
+            query.where(seek(cursor));
+        }
+
+        List<T> rows = query
+                .orderBy(keyOrder, new OrderSpecifier<>(direction, id))
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(content.get(size - 1)) : null;
+        return new KeysetSlice<>(content, size, hasNext, nextCursor);
+    }
+
+    private Predicate seek(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+
+        //"id:key", 키가 null 이면 "id"
+        int separator = decoded.indexOf(':');
+        Ops compare = direction == Order.ASC ? Ops.GT : Ops.LT;
+        if (separator < 0) {
+            //key is null and id > :lastId
+            Expression<Long> lastId = Expressions.constant(parseId(decoded, cursor));
+            return Expressions.booleanOperation(Ops.IS_NULL, key)
+                    .and(Expressions.booleanOperation(compare, id, lastId));
+        }
+
+        Expression<Long> lastId = Expressions.constant(parseId(decoded.substring(0, separator), cursor));
+        Expression<?> lastKey = Expressions.constant(parseKey(decoded.substring(separator + 1), cursor));
+
+        //key > :lastKey or (key = :lastKey and id > :lastId) or key is null
+        return Expressions.booleanOperation(compare, key, lastKey)
+                .or(Expressions.booleanOperation(Ops.EQ, key, lastKey)
+                        .and(Expressions.booleanOperation(compare, id, lastId)))
+                .or(Expressions.booleanOperation(Ops.IS_NULL, key));
+    }
+
+    private String encode(T last) {
+        Object lastKey = keyOf.apply(last);
+        String raw = lastKey == null ? String.valueOf(idOf.apply(last)) : idOf.apply(last) + ":" + lastKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long parseId(String value, String cursor) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+    }
+
+    private Object parseKey(String value, String cursor) {
+        Class<?> type = key.getType();
+        try {
+            if (type == String.class) {
+                return value;
+            }
+            if (type == Integer.class) {
+                return Integer.valueOf(value);
+            }
+            if (type == Long.class) {
+                return Long.valueOf(value);
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+        throw new IllegalArgumentException("Unsupported keyset key type: " + type.getName());
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * keyset(seek) 페이징 결과
+ * 다음 페이지는 nextCursor 로 이어서 조회한다. (마지막 페이지면 null)
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+}
@@ -3,11 +3,15 @@ package study.querydsl.repository.support;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.SimpleExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -18,8 +22,13 @@ import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -35,6 +44,7 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private ConcurrentCountExecutor concurrentCountExecutor;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -52,6 +62,11 @@ public abstract class Querydsl4RepositorySupport {
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
 
+    @Autowired(required = false)
+    public void setConcurrentCountExecutor(ConcurrentCountExecutor concurrentCountExecutor) {
+        this.concurrentCountExecutor = concurrentCountExecutor;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
@@ -79,10 +94,22 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    /**
+     * 조회한 엔티티를 읽기 전용으로 올린다. (변경 감지용 스냅샷을 만들지 않고 flush 때 검사하지 않는다)
+     */
+    protected <T> JPAQuery<T> selectFromReadOnly(EntityPath<T> from) {
+        return readOnly(selectFrom(from));
+    }
+
+    protected <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        return query.setHint(QueryHints.READ_ONLY, true);
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        LongSupplier total = countTotal(jpaQuery);
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, total);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory, JPAQuery> countQuery) {
@@ -91,4 +118,77 @@ public abstract class Querydsl4RepositorySupport {
         JPAQuery countResult = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
     }
+
+    /**
+     * count 쿼리를 다른 커넥션에서 content 쿼리와 동시에 실행한다. (ConcurrentCountExecutor)
+     */
+    protected <T> Page<T> applyConcurrentPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
+        Assert.state(concurrentCountExecutor != null, "ConcurrentCountExecutor must not be null!");
+        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        getQuerydsl().applyPagination(pageable, jpaContentQuery);
+        JPAQuery<Long> jpaCountQuery = countQuery.apply(getQueryFactory());
+        return concurrentCountExecutor.getPage(pageable, jpaContentQuery::fetch, jpaCountQuery);
+    }
+
+    /**
+     * 컬렉션 fetch join 페이징
+     * fetch join 쿼리에 limit 를 걸면 Hibernate 가 전체 결과를 메모리에 올린 뒤 잘라낸다. (HHH000104)
+     * 먼저 root id 만 페이징해서 조회하고, 그 id 들만 fetch join 으로 조회한 뒤 id 페이지 순서대로 다시 정렬한다.
+     * rootQuery 는 root 가 중복되지 않도록 to-many 조인 없이 작성한다. (컬렉션 조건은 서브쿼리로)
+     */
+    protected <T, ID> Page<T> applyFetchJoinPagination(Pageable pageable, SimpleExpression<ID> id, Function<T, ID> idOf,
+                                                       Function<JPAQueryFactory, JPAQuery<?>> rootQuery,
+                                                       BiFunction<JPAQueryFactory, List<ID>, JPAQuery<T>> fetchQuery) {
+        JPAQuery<ID> idQuery = rootQuery.apply(getQueryFactory()).select(id);
+        List<ID> ids = getQuerydsl().applyPagination(pageable, idQuery).fetch();
+        JPAQuery<Long> countQuery = rootQuery.apply(getQueryFactory()).select(id.count());
+        if (ids.isEmpty()) {
+            return PageableExecutionUtils.getPage(new ArrayList<>(), pageable, countQuery::fetchOne);
+        }
+
+        Map<ID, T> rows = new HashMap<>();
+        for (T row : fetchQuery.apply(getQueryFactory(), ids).fetch()) {
+            rows.putIfAbsent(idOf.apply(row), row);
+        }
+        List<T> content = new ArrayList<>(ids.size());
+        for (ID rowId : ids) {
+            T row = rows.get(rowId);
+            if (row != null) {
+                content.add(row);
+            }
+        }
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    /**
+     * count 쿼리 없이 pageSize + 1 건을 조회해서 다음 페이지 여부만 판단한다.
+     */
+    protected <T> Slice<T> applySlicing(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        getQuerydsl().applyPagination(pageable, jpaQuery);
+        jpaQuery.limit(pageable.getPageSize() + 1);
+        List<T> rows = jpaQuery.fetch();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<T> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * content 쿼리에서 count 쿼리를 유도한다. (CountQueryBuilder)
+     * group by, distinct 쿼리처럼 유도할 수 없는 경우에만 기존 fetchCount 를 사용한다.
+     */
+    @SuppressWarnings("deprecation")
+    private LongSupplier countTotal(JPAQuery<?> contentQuery) {
+        if (!CountQueryBuilder.supports(contentQuery)) {
+            JPAQuery<?> fallback = contentQuery.clone();
+            return fallback::fetchCount;
+        }
+        JPAQuery<Long> countQuery = CountQueryBuilder.build(getEntityManager(), contentQuery);
+        return countQuery::fetchOne;
+    }
+
+    protected <T> KeysetSlice<T> applyKeyset(KeysetOrder<T> order, String cursor, int size, Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        return order.fetch(jpaQuery, cursor, size);
+    }
 }
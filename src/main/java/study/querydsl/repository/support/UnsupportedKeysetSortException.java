@@ -0,0 +1,13 @@
+package study.querydsl.repository.support;
+
+/**
+ * keyset 페이징을 지원하지 않는 정렬 조건 (클라이언트가 보낸 값이므로 컨트롤러에서 400 으로 바꾼다)
+ */
+public class UnsupportedKeysetSortException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedKeysetSortException(String property) {
+        super("Unsupported keyset sort property: " + property);
+    }
+}
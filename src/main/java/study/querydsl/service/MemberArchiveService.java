@@ -0,0 +1,188 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberArchiveProgress;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberArchiveJob;
+import study.querydsl.repository.MemberArchiveJobRepository;
+import study.querydsl.repository.MemberArchiveRepository;
+import study.querydsl.repository.MemberCountCache;
+import study.querydsl.repository.MemberDataVersion;
+import study.querydsl.repository.MemberReadModel;
+import study.querydsl.repository.support.BulkUpdateResult;
+import study.querydsl.repository.support.ChunkedBulkExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 조건에 맞는 회원을 배치 단위로 보관 테이블(MemberArchive)에 복사하고 지우는 백그라운드 작업
+ * 한 번에 하나의 delete 로 지우면 대상 row 전체를 잠그므로, id 순서의 배치마다 별도 트랜잭션으로 처리하고
+ * 초당 처리 건수(member.archive.rows-per-second)를 넘지 않도록 배치 사이에 쉰다.
+ *
+ * 복사, 삭제, 체크포인트(MemberArchiveJob.lastId) 저장은 배치마다 한 트랜잭션이므로
+ * 서버가 중간에 죽어도 RUNNING 상태의 작업을 lastId 다음부터 이어서 실행하면 된다. (시작할 때 자동으로 이어서 실행)
+ * 종료할 때는 실행 중인 작업을 인터럽트하므로 현재 배치까지만 처리하고 RUNNING 상태로 남는다.
+ */
+@Slf4j
+@Service
+public class MemberArchiveService implements DisposableBean {
+
+    private final MemberArchiveRepository memberArchiveRepository;
+    private final MemberArchiveJobRepository memberArchiveJobRepository;
+    private final MemberCountCache memberCountCache;
+    private final MemberDataVersion memberDataVersion;
+    private final ChunkedBulkExecutor chunkedBulkExecutor;
+    private final ObjectProvider<MemberReadModel> memberReadModel;
+    private final TransactionTemplate tx;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final int batchSize;
+    private final long rowsPerSecond;
+    private final boolean resumeOnStartup;
+
+    //이 서버에서 실행 중인 작업의 최근 처리 속도
+    private final Map<Long, Double> running = new ConcurrentHashMap<>();
+
+    public MemberArchiveService(MemberArchiveRepository memberArchiveRepository,
+                                MemberArchiveJobRepository memberArchiveJobRepository,
+                                MemberCountCache memberCountCache,
+                                MemberDataVersion memberDataVersion,
+                                ChunkedBulkExecutor chunkedBulkExecutor,
+                                ObjectProvider<MemberReadModel> memberReadModel,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${member.archive.batch-size:1000}") int batchSize,
+                                @Value("${member.archive.rows-per-second:5000}") long rowsPerSecond,
+                                @Value("${member.archive.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.memberArchiveRepository = memberArchiveRepository;
+        this.memberArchiveJobRepository = memberArchiveJobRepository;
+        this.memberCountCache = memberCountCache;
+        this.memberDataVersion = memberDataVersion;
+        this.chunkedBulkExecutor = chunkedBulkExecutor;
+        this.memberReadModel = memberReadModel;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.rowsPerSecond = rowsPerSecond;
+        this.resumeOnStartup = resumeOnStartup;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(1);
+        this.executor.setMaxPoolSize(1);
+        this.executor.setThreadNamePrefix("member-archive-");
+        this.executor.setWaitForTasksToCompleteOnShutdown(false);
+        this.executor.initialize();
+    }
+
+    /**
+     * 작업을 만들고 백그라운드에서 실행한다.
+     */
+    public MemberArchiveProgress start(MemberSearchCondition condition) {
+        MemberArchiveJob job = tx.execute(status -> memberArchiveJobRepository.save(new MemberArchiveJob(condition)));
+        submit(job.getId());
+        return getProgress(job.getId());
+    }
+
+    /**
+     * 중단되거나 실패한 작업을 체크포인트 다음부터 이어서 실행한다.
+     */
+    public MemberArchiveProgress resume(Long jobId) {
+        tx.executeWithoutResult(status -> findJob(jobId).resume());
+        submit(jobId);
+        return getProgress(jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        for (MemberArchiveJob job : memberArchiveJobRepository.findByStatus(MemberArchiveJob.Status.RUNNING)) {
+            log.info("Resuming member archive job {} after id {}", job.getId(), job.getLastId());
+            submit(job.getId());
+        }
+    }
+
+    public MemberArchiveProgress getProgress(Long jobId) {
+        MemberArchiveJob job = findJob(jobId);
+        Double rate = running.get(jobId);
+        return new MemberArchiveProgress(job.getId(), job.getStatus(), rate != null, job.getLastId(),
+                job.getRowsArchived(), job.getBatches(), rate != null ? rate : 0, job.getFailure(),
+                job.getStartedAt(), job.getUpdatedAt());
+    }
+
+    private void submit(Long jobId) {
+        if (running.putIfAbsent(jobId, 0d) != null) {
+            return;
+        }
+        executor.execute(() -> run(jobId));
+    }
+
+    /**
+     * 호출한 스레드에서 작업을 실행한다. 인터럽트되면 현재 배치까지만 처리하고 RUNNING 상태로 남는다.
+     */
+    public BulkUpdateResult run(Long jobId) {
+        running.putIfAbsent(jobId, 0d);
+        try {
+            MemberArchiveJob job = findJob(jobId);
+            MemberSearchCondition condition = job.toCondition();
+            long startNanos = System.nanoTime();
+
+            BulkUpdateResult result = chunkedBulkExecutor.execute(Member.class, job.getLastId(), batchSize, rowsPerSecond,
+                    (afterId, limit) -> memberArchiveRepository.findIds(condition, afterId, limit),
+                    (fromId, toId) -> {
+                        long copied = memberArchiveRepository.copy(jobId, condition, fromId, toId);
+                        long deleted = memberArchiveRepository.deleteArchived(jobId, fromId, toId);
+                        if (copied != deleted) {
+                            throw new IllegalStateException("Archived " + copied + " members but deleted " + deleted);
+                        }
+                        findJob(jobId).checkpoint(toId, deleted);
+                        return deleted;
+                    },
+                    progress -> {
+                        memberCountCache.invalidateAll();
+                        memberDataVersion.bump();
+                        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000d;
+                        running.put(jobId, seconds > 0 ? progress.getRowsAffected() / seconds : 0);
+                    });
+
+            if (result.isCompleted()) {
+                tx.executeWithoutResult(status -> findJob(jobId).complete());
+            }
+            //벌크 delete 는 이벤트가 발생하지 않으므로 읽기 모델을 다시 읽는다.
+            memberReadModel.ifAvailable(MemberReadModel::reload);
+            log.info("Member archive job {}: {}", jobId, result);
+            return result;
+        } catch (RuntimeException e) {
+            log.warn("Member archive job {} failed", jobId, e);
+            tx.executeWithoutResult(status -> findJob(jobId).fail(failure(e)));
+            throw e;
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+    private static String failure(RuntimeException e) {
+        String failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return failure.length() > 255 ? failure.substring(0, 255) : failure;
+    }
+
+    private MemberArchiveJob findJob(Long jobId) {
+        return memberArchiveJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Member archive job not found: " + jobId));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,171 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 CSV(name,age,teamName) 가져오기
+ * 파일을 한 줄씩 읽어서 chunk-size 건마다 별도 트랜잭션으로 저장한다.
+ * 트랜잭션 안에서는 batch-size 건마다 flush(JDBC batch insert) 후 clear 해서 영속성 컨텍스트 크기를 batch-size 로 제한한다.
+ *
+ * 팀명은 팀 id 캐시로 한 번만 조회(없으면 생성)하고, 회원에는 getReference 로 연결한다.
+ * (new Member(name, age, team) 은 team.getMembers() 를 초기화하므로 사용하지 않는다)
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private static final String HEADER = "name,age,teamName";
+
+    private final EntityManager em;
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final int batchSize;
+
+    public MemberImportService(EntityManager em, TeamRepository teamRepository, PlatformTransactionManager transactionManager,
+                               @Value("${member.import.chunk-size:10000}") int chunkSize,
+                               @Value("${member.import.batch-size:500}") int batchSize) {
+        this.em = em;
+        this.teamRepository = teamRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    public MemberImportResult importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        Import state = new Import();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        List<String[]> chunk = new ArrayList<>(chunkSize);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.trim().equalsIgnoreCase(HEADER))) {
+                continue;
+            }
+            chunk.add(parse(line, lineNumber));
+            if (chunk.size() == chunkSize) {
+                save(chunk, state);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            save(chunk, state);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = elapsedMillis > 0 ? state.rows * 1000d / elapsedMillis : state.rows;
+        MemberImportResult result = new MemberImportResult(state.rows, state.teamsCreated, state.chunks,
+                state.maxManagedEntities, elapsedMillis, rowsPerSecond);
+        log.info("Member import finished: {}", result);
+        return result;
+    }
+
+    private void save(List<String[]> rows, Import state) {
+        Map<String, Long> createdTeams = new HashMap<>();
+        try {
+            tx.executeWithoutResult(status -> {
+                em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                int pending = 0;
+                for (String[] row : rows) {
+                    Member member = new Member(row[0], Integer.parseInt(row[1]));
+                    if (row.length > 2 && !row[2].isEmpty()) {
+                        member.setTeam(em.getReference(Team.class, teamId(row[2], state, createdTeams)));
+                    }
+                    em.persist(member);
+                    if (++pending == batchSize) {
+                        flushAndClear(state);
+                        pending = 0;
+                    }
+                }
+                flushAndClear(state);
+            });
+        } catch (RuntimeException e) {
+            //롤백된 청크에서 만든 팀은 캐시에서 지운다.
+            createdTeams.keySet().forEach(state.teamIds::remove);
+            throw e;
+        }
+        state.rows += rows.size();
+        state.teamsCreated += createdTeams.size();
+        state.chunks++;
+        log.debug("Member import chunk {}: {} rows", state.chunks, state.rows);
+    }
+
+    private Long teamId(String teamName, Import state, Map<String, Long> createdTeams) {
+        Long teamId = state.teamIds.get(teamName);
+        if (teamId != null) {
+            return teamId;
+        }
+        teamId = teamRepository.findByName(teamName)
+                .map(Team::getId)
+                .orElse(null);
+        if (teamId == null) {
+            Team team = new Team(teamName);
+            em.persist(team);
+            teamId = team.getId();
+            createdTeams.put(teamName, teamId);
+        }
+        state.teamIds.put(teamName, teamId);
+        return teamId;
+    }
+
+    private void flushAndClear(Import state) {
+        int managed = em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+        state.maxManagedEntities = Math.max(state.maxManagedEntities, managed);
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 쉼표로만 구분한다. (따옴표로 감싼 값은 지원하지 않는다)
+     */
+    private static String[] parse(String line, long lineNumber) {
+        String[] columns = line.split(",", -1);
+        if (columns.length < 2 || columns.length > 3) {
+            throw new IllegalArgumentException("Invalid member CSV line " + lineNumber + ": " + line);
+        }
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].trim();
+        }
+        try {
+            Integer.parseInt(columns[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid age at member CSV line " + lineNumber + ": " + columns[1]);
+        }
+        return columns;
+    }
+
+    /**
+     * 가져오기 한 번의 상태 (팀 id 캐시와 진행 상황)
+     */
+    private static class Import {
+        private final Map<String, Long> teamIds = new HashMap<>();
+        private long rows;
+        private int teamsCreated;
+        private int chunks;
+        private int maxManagedEntities;
+    }
+}
@@ -0,0 +1,285 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 생성 요청을 모아서 한 트랜잭션에 JDBC batch insert 로 저장한다.
+ * 요청마다 트랜잭션(MemberJpaRepository.save)을 열면 커밋 횟수만큼 왕복이 생기므로,
+ * 큐(member.ingest.capacity)에 쌓인 요청을 batch-size 건이 모이거나 첫 요청 후 max-delay 가 지나면 한 번에 저장한다.
+ *
+ * 각 요청의 future 는 배치가 커밋된 뒤에 생성된 id 로 완료된다. 완료된 요청은 이미 커밋되었으므로 서버가 죽어도 유실되지 않는다.
+ * 큐가 가득 차면 offer-timeout 만큼 기다린 뒤 거절한다. (503)
+ * 배치가 실패하면 한 건씩 다시 저장해서 실패한 요청만 예외로 완료한다.
+ */
+@Slf4j
+@Service
+public class MemberIngestionBuffer implements DisposableBean {
+
+    //지연시간 백분위를 계산할 최근 샘플 수
+    private static final int LATENCY_SAMPLES = 8192;
+
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    private final BlockingQueue<Request> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutNanos;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long latencyCount;
+
+    public MemberIngestionBuffer(EntityManager em, PlatformTransactionManager transactionManager,
+                                 @Value("${member.ingest.capacity:10000}") int capacity,
+                                 @Value("${member.ingest.batch-size:500}") int batchSize,
+                                 @Value("${member.ingest.max-delay:10ms}") Duration maxDelay,
+                                 @Value("${member.ingest.offer-timeout:100ms}") Duration offerTimeout) {
+        this.em = em;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+
+        this.flusher = new Thread(this::flushLoop, "member-ingest");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 회원 생성 요청을 큐에 넣는다. 반환된 future 는 커밋된 뒤 회원 id 로 완료된다.
+     */
+    public CompletableFuture<Long> submit(String name, int age, Long teamId) {
+        Request request = new Request(name, age, teamId);
+        if (!running) {
+            return reject(request, "Member ingestion is stopped");
+        }
+        try {
+            if (!queue.offer(request, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return reject(request, "Member ingestion queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return reject(request, "Interrupted while waiting for member ingestion queue");
+        }
+        //넣는 사이에 멈췄으면 flusher 가 이미 끝났을 수 있다. 큐에서 직접 꺼냈으면 아무도 완료하지 않으므로 거절한다.
+        if (!running && queue.remove(request)) {
+            return reject(request, "Member ingestion is stopped");
+        }
+        submitted.incrementAndGet();
+        return request.future;
+    }
+
+    private CompletableFuture<Long> reject(Request request, String message) {
+        rejected.incrementAndGet();
+        request.future.completeExceptionally(new IngestionRejectedException(message));
+        return request.future;
+    }
+
+    private void flushLoop() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                //강제 종료: 커밋되지 않은 요청은 완료하지 않고 실패로 돌려준다.
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        failRemaining(new IngestionRejectedException("Member ingestion stopped before the request was saved"));
+    }
+
+    private void flush(List<Request> batch) {
+        try {
+            List<Long> ids = save(batch);
+            batches.incrementAndGet();
+            for (int i = 0; i < batch.size(); i++) {
+                acknowledge(batch.get(i), ids.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            log.warn("Member ingestion batch of {} failed, saving one by one", batch.size(), e);
+            for (Request request : batch) {
+                try {
+                    acknowledge(request, save(List.of(request)).get(0));
+                    batches.incrementAndGet();
+                } catch (RuntimeException single) {
+                    fail(request, single);
+                }
+            }
+        }
+    }
+
+    private List<Long> save(List<Request> batch) {
+        return tx.execute(status -> {
+            em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            List<Member> members = new ArrayList<>(batch.size());
+            for (Request request : batch) {
+                Member member = new Member(request.name, request.age);
+                if (request.teamId != null) {
+                    member.setTeam(em.getReference(Team.class, request.teamId));
+                }
+                em.persist(member);
+                members.add(member);
+            }
+            em.flush();
+            em.clear();
+            List<Long> ids = new ArrayList<>(members.size());
+            for (Member member : members) {
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+    }
+
+    private void acknowledge(Request request, Long id) {
+        recordLatency(System.nanoTime() - request.enqueuedNanos);
+        acknowledged.incrementAndGet();
+        request.future.complete(id);
+    }
+
+    private void fail(Request request, RuntimeException e) {
+        failed.incrementAndGet();
+        request.future.completeExceptionally(e);
+    }
+
+    private void failRemaining(RuntimeException e) {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            fail(request, e);
+        }
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = nanos;
+    }
+
+    /**
+     * 처리 건수, 초당 저장 건수, 최근 요청의 지연시간(마이크로초) 백분위
+     */
+    public Map<String, Long> metrics() {
+        long[] samples;
+        synchronized (this) {
+            samples = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+        }
+        Arrays.sort(samples);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("submitted", submitted.get());
+        metrics.put("acknowledged", acknowledged.get());
+        metrics.put("failed", failed.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("batches", batches.get());
+        metrics.put("queued", (long) queue.size());
+        metrics.put("rowsPerSecond", acknowledged.get() * 1000 / elapsedMillis);
+        metrics.put("p50LatencyMicros", percentile(samples, 0.50));
+        metrics.put("p99LatencyMicros", percentile(samples, 0.99));
+        metrics.put("maxLatencyMicros", percentile(samples, 1.0));
+        return metrics;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000;
+    }
+
+    /**
+     * 새 요청을 받지 않고 큐에 남은 요청을 모두 저장한 뒤 멈춘다.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * 저장하지 않고 바로 멈춘다. (서버가 죽은 상황)
+     * 커밋되지 않은 요청은 완료되지 않거나 실패로 완료된다.
+     */
+    void halt() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join();
+    }
+
+    private static class Request {
+        private final String name;
+        private final int age;
+        private final Long teamId;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private Request(String name, int age, Long teamId) {
+            this.name = name;
+            this.age = age;
+            this.teamId = teamId;
+        }
+    }
+
+    /**
+     * 큐가 가득 찼거나 멈춘 상태라서 받지 못한 요청
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public static class IngestionRejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public IngestionRejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.DtoProjection;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -594,6 +595,58 @@ public class QuerydslBasicTest {
         }
     }
 
+    /**
+     * 리플렉션 없이 setter 로 넣어준다. (DtoProjection)
+     */
+    @Test
+    void findDtoByDtoProjection() {
+        List<MemberDto> resultList = queryFactory
+                .select(DtoProjection.bean(MemberDto.class,
+                        member.name,
+                        member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(resultList).extracting("name").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(resultList).extracting("age").containsExactly(10, 20, 30, 40);
+    }
+
+    /**
+     * 별칭으로 프로퍼티를 지정한다. (UserDto)
+     */
+    @Test
+    void findUserDtoByDtoProjection() {
+        QMember memberSub = new QMember("memberSub");
+        List<UserDto> resultList = queryFactory
+                .select(DtoProjection.bean(UserDto.class,
+                        member.name.as("username"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")
+                        ))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(resultList).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(resultList).extracting("age").containsOnly(40);
+    }
+
+    @Test
+    void findUserDtoByDtoProjectionConstructor() {
+        List<UserDto> resultList = queryFactory
+                .select(DtoProjection.constructor(UserDto.class,
+                        member.name,
+                        member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(resultList).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(resultList).extracting("age").containsExactly(10, 20, 30, 40);
+    }
+
     @Test
     void dynamicQueryBooleanBuilder() {
         String usernameParam = "member1";
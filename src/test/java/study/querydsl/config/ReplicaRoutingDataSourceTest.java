@@ -0,0 +1,163 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * primary, replica 를 서로 다른 in-memory H2 로 띄우고 각각 다른 회원을 넣어서 어느 쪽을 읽었는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "datasource.replica.username=sa",
+        "datasource.replica.retry-interval=1m",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@DirtiesContext
+@AutoConfigureMockMvc
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    DataSourcePools dataSourcePools;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void before() {
+        JdbcTemplate primary = new JdbcTemplate(dataSourcePools.getPrimary());
+        JdbcTemplate replica = new JdbcTemplate(dataSourcePools.getReplica());
+
+        //replica 스키마를 primary 와 같게 맞춘다.
+        replica.execute("drop all objects");
+        for (String ddl : primary.queryForList("script nodata", String.class)) {
+            if (!ddl.startsWith("CREATE USER")) {
+                replica.execute(ddl);
+            }
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.deleteAll();
+            memberRepository.save(new Member("primaryMember", 10));
+        });
+        replica.update("insert into member (member_id, member_name, age) values (?, ?, ?)", 1000L, "replicaMember", 20);
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        List<MemberTeamDto> searchResult = memberRepository.search(new MemberSearchCondition());
+        assertThat(searchResult).extracting("username").containsExactly("replicaMember");
+
+        List<Member> findAllResult = memberRepository.findAll();
+        assertThat(findAllResult).extracting("name").containsExactly("replicaMember");
+
+        assertThat(dataSourcePools.metrics().get(DataSourcePools.REPLICA).get("connections")).isGreaterThan(0);
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        List<MemberTeamDto> result = new TransactionTemplate(transactionManager)
+                .execute(status -> memberRepository.search(new MemberSearchCondition()));
+
+        assertThat(result).extracting("username").containsExactly("primaryMember");
+    }
+
+    /**
+     * 한 세션(open-in-view 처럼 요청 전체에 묶인 EntityManager)에서 읽기 전용 트랜잭션 다음에 쓰기 트랜잭션을 실행해도
+     * 쓰기는 primary 로 가야 한다. (트랜잭션이 끝나면 replica 커넥션을 반납한다)
+     */
+    @Test
+    void readThenWriteInOneSession() {
+        EntityManager em = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        try {
+            List<Member> readResult = memberRepository.findAll();
+            assertThat(readResult).extracting("name").containsExactly("replicaMember");
+
+            new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> memberRepository.save(new Member("sessionMember", 30)));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            EntityManagerFactoryUtils.closeEntityManager(em);
+        }
+
+        String sql = "select count(*) from member where member_name = 'sessionMember'";
+        assertThat(new JdbcTemplate(dataSourcePools.getPrimary()).queryForObject(sql, Long.class)).isEqualTo(1);
+        assertThat(new JdbcTemplate(dataSourcePools.getReplica()).queryForObject(sql, Long.class)).isZero();
+    }
+
+    @Test
+    void runOnPrimaryInReadOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<String> names = new ArrayList<>();
+
+        readOnly.executeWithoutResult(status -> ReplicaRoutingDataSource.runOnPrimary(() -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                names.addAll(em.createQuery("select m.name from Member m", String.class).getResultList());
+            } finally {
+                em.close();
+            }
+        }));
+
+        assertThat(names).containsExactly("primaryMember");
+    }
+
+    @Test
+    void fallbackToPrimaryWhenReplicaUnavailable() {
+        long fallbacks = dataSourcePools.getFallbackCount();
+        dataSourcePools.getReplica().close();
+
+        List<MemberTeamDto> result = memberRepository.search(new MemberSearchCondition());
+
+        assertThat(result).extracting("username").containsExactly("primaryMember");
+        assertThat(dataSourcePools.getFallbackCount()).isEqualTo(fallbacks + 1);
+    }
+
+    /**
+     * replica 는 커밋보다 늦을 수 있으므로 데이터 버전으로 ETag 를 만들지 않는다.
+     */
+    @Test
+    void noConditionalGetWithReplica() throws Exception {
+        mockMvc.perform(get("/v1/members").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+}
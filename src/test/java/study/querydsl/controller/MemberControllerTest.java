@@ -0,0 +1,191 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberDataVersion;
+import study.querydsl.service.MemberIngestionBuffer;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberIngestionBuffer memberIngestionBuffer;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void defaultJson() throws Exception {
+        mockMvc.perform(get("/v2/members").param("size", "2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data.content[0].username").value("member1"))
+                .andExpect(jsonPath("$.data.content[0].teamName").value("teamA"))
+                .andExpect(jsonPath("$.data.pageable").exists());
+
+        mockMvc.perform(get("/v2/members").param("size", "2").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void compactJson() throws Exception {
+        mockMvc.perform(get("/v2/members").param("size", "2").accept(CompactJsonHttpMessageConverter.COMPACT))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CompactJsonHttpMessageConverter.COMPACT))
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.content[*].username", contains("member1", "member2")))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+    }
+
+    @Test
+    void columnarJson() throws Exception {
+        mockMvc.perform(get("/v2/members").param("page", "1").param("size", "2").accept(CompactJsonHttpMessageConverter.COLUMNAR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CompactJsonHttpMessageConverter.COLUMNAR))
+                .andExpect(jsonPath("$.columns", contains("memberId", "username", "age", "teamId", "teamName")))
+                .andExpect(jsonPath("$.rows.length()").value(1))
+                .andExpect(jsonPath("$.rows[0][1]").value("member3"))
+                .andExpect(jsonPath("$.rows[0][2]").value(30))
+                .andExpect(jsonPath("$.rows[0][3]").value(nullValue()))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void columnarJsonRejectsOtherRowsBeforeWriting() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CompactJsonHttpMessageConverter converter = new CompactJsonHttpMessageConverter(objectMapper);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            assertThatThrownBy(() -> converter.write(gen, 1, List.of("member1"), true))
+                    .isInstanceOf(HttpMessageNotWritableException.class);
+        }
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void conditionalGet() throws Exception {
+        String etag = mockMvc.perform(get("/v2/members").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //데이터가 그대로면 조회 없이 304
+        mockMvc.perform(get("/v2/members").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        //조건이나 형식이 다르면 다른 ETag
+        mockMvc.perform(get("/v2/members").param("size", "3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/v2/members").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(CompactJsonHttpMessageConverter.COMPACT))
+                .andExpect(status().isOk());
+
+        //Member 가 바뀌면 다시 조회
+        em.persist(new Member("member4", 40));
+        em.flush();
+        mockMvc.perform(get("/v2/members").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(4));
+    }
+
+    @Test
+    void dataVersionDiffersAcrossRestarts() {
+        //재시작하면 변경 횟수는 같아도 이전 서버의 ETag 와 겹치지 않는다.
+        assertThat(new MemberDataVersion().get()).isNotEqualTo(new MemberDataVersion().get());
+    }
+
+    @Test
+    void invalidCursor() throws Exception {
+        mockMvc.perform(get("/v4/members").param("cursor", "not-a-cursor").param("size", "2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unsupportedKeysetSort() throws Exception {
+        mockMvc.perform(get("/v4/members").param("sort", "teamName").param("size", "2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void keysetPagesThroughNullNames() throws Exception {
+        em.persist(new Member(null, 40));
+        em.flush();
+
+        String body = mockMvc.perform(get("/v4/members").param("sort", "username").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[*].username", contains("member1", "member2", "member3")))
+                .andReturn().getResponse().getContentAsString();
+        String next = new ObjectMapper().readTree(body).at("/data/nextCursor").asText();
+
+        mockMvc.perform(get("/v4/members").param("sort", "username").param("size", "3").param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[*].age", contains(40)))
+                .andExpect(jsonPath("$.data.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void invalidCreateRequestIsNotQueued() throws Exception {
+        long submitted = memberIngestionBuffer.metrics().get("submitted");
+
+        for (String body : new String[]{
+                "{\"age\": 10}",
+                "{\"name\": \" \", \"age\": 10}",
+                "{\"name\": \"member4\", \"age\": -1}",
+                "{\"name\": \"member4\", \"age\": 10, \"teamId\": -1}"}) {
+            mockMvc.perform(post("/v1/members").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+        }
+
+        assertThat(memberIngestionBuffer.metrics().get("submitted")).isEqualTo(submitted);
+    }
+}
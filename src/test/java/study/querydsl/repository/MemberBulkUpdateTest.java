@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkUpdateResult;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 청크는 별도 트랜잭션(커넥션)에서 실행되므로 @Transactional 롤백 대신 직접 커밋하고 지운다.
+ */
+@SpringBootTest(properties = "member.bulk.chunk-size=2")
+class MemberBulkUpdateTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamId;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("bulkTeam");
+            em.persist(team);
+            teamId = team.getId();
+            for (int i = 1; i <= 5; i++) {
+                Member member = new Member("bulk" + i, i * 10, team);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            memberIds.forEach(id -> em.remove(em.find(Member.class, id)));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    void bulkAddAge() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeam");
+        condition.setAgeGoe(20);
+        List<BulkUpdateResult> progress = new ArrayList<>();
+
+        BulkUpdateResult result = memberRepository.bulkAddAge(condition, 1, progress::add);
+
+        //20, 30 / 40, 50 두 청크
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getRowsAffected()).isEqualTo(4);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(progress).extracting("rowsAffected").containsExactly(2L, 4L);
+
+        List<Integer> ages = tx.execute(status -> em.createQuery("select m.age from Member m where m.team.id = :teamId order by m.id", Integer.class)
+                .setParameter("teamId", teamId)
+                .getResultList());
+        assertThat(ages).containsExactly(10, 21, 31, 41, 51);
+    }
+
+    @Test
+    void bulkUpdateNameDetachesOnlyAffectedEntities() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeam");
+        condition.setAgeLoe(20);
+
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, memberIds.get(0));
+            Member member3 = em.find(Member.class, memberIds.get(2));
+
+            BulkUpdateResult result = memberRepository.bulkUpdateName(condition, "비회원", chunk -> {});
+            assertThat(result.getRowsAffected()).isEqualTo(2);
+
+            //변경된 member1 만 영속성 컨텍스트에서 빠지고 다시 조회하면 DB 값을 본다.
+            assertThat(em.contains(member1)).isFalse();
+            assertThat(em.contains(member3)).isTrue();
+            assertThat(em.find(Member.class, memberIds.get(0)).getName()).isEqualTo("비회원");
+        });
+    }
+}
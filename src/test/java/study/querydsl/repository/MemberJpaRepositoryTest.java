@@ -1,13 +1,18 @@
 package study.querydsl.repository;
 
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.SqlStatementStats;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.SqlBudget;
 
 import javax.persistence.EntityManager;
 
@@ -132,4 +137,141 @@ class MemberJpaRepositoryTest {
         }
         assertThat(resultList).extracting("name").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    @SqlBudget(failOnNPlusOne = false)
+    void searchMemberByWhereParamNPlusOne(SqlStatementStats stats) {
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10 + i, team));
+        }
+        em.flush();
+        em.clear();
+        stats.clear();
+
+        List<Member> resultList = memberJpaRepository.searchMemberByWhereParam(new MemberSearchCondition());
+        for (Member member : resultList) {
+            member.getTeam().getName();
+        }
+
+        //member 조회 1번 + team 지연 로딩 3번
+        assertThat(stats.getStatements()).isEqualTo(4);
+        assertThat(stats.getNPlusOneSuspects()).hasSize(1);
+        SqlStatementStats.Shape suspect = stats.getNPlusOneSuspects().get(0);
+        assertThat(suspect.getCount()).isEqualTo(3);
+        assertThat(suspect.getCallSite().getClassName()).isEqualTo(MemberJpaRepositoryTest.class.getName());
+    }
+
+    @Test
+    @SqlBudget(statements = 1)
+    void searchByWhereParamSqlBudget(SqlStatementStats stats) {
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10 + i, team));
+        }
+        em.flush();
+        em.clear();
+        stats.clear();
+
+        List<MemberTeamDto> resultList = memberJpaRepository.searchByWhereParam(new MemberSearchCondition());
+        assertThat(resultList).extracting("teamName").containsExactly("team0", "team1", "team2");
+    }
+
+    @Test
+    @SqlBudget(statements = 1)
+    void searchMemberByWhereParam_memberTeam(SqlStatementStats stats) {
+        persistTeams();
+        stats.clear();
+
+        List<Member> resultList = memberJpaRepository.searchMemberByWhereParam(new MemberSearchCondition(), MemberFetchPlan.MEMBER_TEAM);
+
+        //team 을 fetch join 했으므로 지연 로딩이 없다.
+        assertThat(resultList).extracting(m -> m.getTeam().getName())
+                .containsExactly("team0", "team0", "team1", "team1", "team2", "team2");
+    }
+
+    @Test
+    @SqlBudget(statements = 2)
+    void searchMemberByWhereParam_teamMembers(SqlStatementStats stats) {
+        persistTeams();
+        stats.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(10);
+        List<Member> resultList = memberJpaRepository.searchMemberByWhereParam(condition, MemberFetchPlan.TEAM_MEMBERS);
+
+        //조건에 맞는 회원은 팀마다 1명이지만 팀의 members 는 모두 채워진다.
+        assertThat(resultList).hasSize(3);
+        for (Member member : resultList) {
+            assertThat(Hibernate.isInitialized(member.getTeam().getMembers())).isTrue();
+            assertThat(member.getTeam().getMembers()).hasSize(2);
+        }
+    }
+
+    @Test
+    @SqlBudget(statements = 1)
+    void searchMemberByWhereParam_memberOnly(SqlStatementStats stats) {
+        persistTeams();
+        stats.clear();
+
+        List<Member> resultList = memberJpaRepository.searchMemberByWhereParam(new MemberSearchCondition(), MemberFetchPlan.MEMBER);
+
+        assertThat(resultList).hasSize(6);
+        assertThat(resultList).allMatch(m -> !Hibernate.isInitialized(m.getTeam()));
+    }
+
+    @Test
+    void findAll_readOnly() {
+        persistTeams();
+
+        List<Member> readOnly = memberJpaRepository.findAll_querydsl(true);
+        PersistenceContext persistenceContext = em.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        //변경 감지용 스냅샷(loadedState)을 만들지 않는다.
+        assertThat(readOnly).hasSize(6).allSatisfy(m -> {
+            assertThat(persistenceContext.isReadOnly(m)).isTrue();
+            assertThat(persistenceContext.getEntry(m).getLoadedState()).isNull();
+        });
+
+        //읽기 전용 엔티티의 변경은 flush 되지 않는다.
+        Member first = readOnly.get(0);
+        first.setAge(99);
+        em.flush();
+        em.clear();
+        assertThat(memberJpaRepository.findById(first.getId()).get().getAge()).isNotEqualTo(99);
+
+        List<Member> managed = memberJpaRepository.findAll();
+        assertThat(managed).hasSize(6).allSatisfy(m -> assertThat(persistenceContext.isReadOnly(m)).isFalse());
+    }
+
+    @Test
+    @SqlBudget(statements = 2)
+    void searchMemberByWhereParam_teamMembersReadOnly(SqlStatementStats stats) {
+        persistTeams();
+        stats.clear();
+
+        List<Member> resultList = memberJpaRepository.searchMemberByWhereParam(new MemberSearchCondition(), MemberFetchPlan.TEAM_MEMBERS, true);
+
+        PersistenceContext persistenceContext = em.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        assertThat(resultList).hasSize(6).allSatisfy(m -> {
+            assertThat(persistenceContext.isReadOnly(m)).isTrue();
+            assertThat(persistenceContext.isReadOnly(m.getTeam())).isTrue();
+            assertThat(m.getTeam().getMembers()).hasSize(2);
+        });
+    }
+
+    /**
+     * 팀 3개, 팀마다 나이 10, 20 인 회원 2명
+     */
+    private void persistTeams() {
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i + "a", 10, team));
+            em.persist(new Member("member" + i + "b", 20, team));
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,257 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 읽기 모델은 커밋 이후 이벤트로 갱신되므로 @Transactional 롤백 대신 직접 커밋하고 지운다.
+ */
+@SpringBootTest(properties = "member.read-model.enabled=true")
+@AutoConfigureMockMvc
+class MemberReadModelTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberReadModel memberReadModel;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchQueryCache memberSearchQueryCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    TransactionTemplate tx;
+    List<Long> memberIds = new ArrayList<>();
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("readTeamA");
+            Team teamB = new Team("readTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            teamIds.add(teamA.getId());
+            teamIds.add(teamB.getId());
+
+            for (int i = 1; i <= 20; i++) {
+                Member member = new Member("readMember" + (i % 5), i * 5, i % 2 == 0 ? teamA : teamB);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+            Member noTeam = new Member("readMember0", 50);
+            em.persist(noTeam);
+            memberIds.add(noTeam.getId());
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            memberIds.forEach(id -> memberRepository.findById(id).ifPresent(memberRepository::delete));
+            teamIds.forEach(id -> em.remove(em.find(Team.class, id)));
+        });
+    }
+
+    @Test
+    void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("readTeamA");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(60);
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("age").containsExactly(30, 40, 50, 60);
+        assertThat(result).extracting("teamName").containsOnly("readTeamA");
+    }
+
+    @Test
+    void consistentWithDatabase() {
+        assertConsistent();
+
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberIds.get(0)).setAge(33);
+            em.find(Member.class, memberIds.get(1)).setName("readMemberRenamed");
+            em.find(Team.class, teamIds.get(1)).setName("readTeamC");
+        });
+        assertConsistent();
+
+        tx.executeWithoutResult(status -> memberRepository.deleteById(memberIds.get(2)));
+        assertConsistent();
+    }
+
+    @Test
+    void changesDuringReloadAreKept() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            //reload 가 조회한 뒤 결과로 바꾸기 전에 다른 스레드에서 커밋한 변경도 남아 있어야 한다.
+            memberReadModel.reload(() -> {
+                try {
+                    writer.submit(() -> tx.executeWithoutResult(status -> {
+                        em.find(Member.class, memberIds.get(0)).setAge(77);
+                        em.find(Team.class, teamIds.get(1)).setName("readTeamC");
+                    })).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            writer.shutdown();
+        }
+        assertConsistent();
+    }
+
+    @Test
+    void commitDoesNotWaitForSnapshot() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("readTeamB");
+        tx.executeWithoutResult(status -> em.find(Member.class, memberIds.get(0)).setAge(33));
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        List<MemberTeamDto> duringCommit;
+        try {
+            //스냅샷을 만드는 동안 다른 스레드의 커밋이 끝나야 한다. (만드는 스냅샷에는 복사한 뒤의 변경이 없다)
+            duringCommit = memberReadModel.search(condition, () -> {
+                try {
+                    writer.submit(() -> tx.executeWithoutResult(status -> em.find(Member.class, memberIds.get(0)).setAge(77)))
+                            .get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            writer.shutdown();
+        }
+
+        assertThat(duringCommit).extracting("age").contains(33).doesNotContain(77);
+        assertThat(memberReadModel.search(condition)).extracting("age").contains(77).doesNotContain(33);
+        assertConsistent();
+    }
+
+    @Test
+    void readWriteTransactionUsesDatabase() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("readMemberNew");
+
+        tx.executeWithoutResult(status -> {
+            Member member = new Member("readMemberNew", 99);
+            em.persist(member);
+            memberIds.add(member.getId());
+
+            //아직 커밋되지 않은 변경은 DB 에서만 보인다.
+            assertThat(memberRepository.search(condition)).hasSize(1);
+            assertThat(memberReadModel.search(condition)).isEmpty();
+        });
+        assertThat(memberReadModel.search(condition)).hasSize(1);
+    }
+
+    @Test
+    void conditionalGetAfterCommit() throws Exception {
+        String etag = poll(null, 10, 35, 60, 85);
+
+        tx.executeWithoutResult(status -> em.find(Member.class, memberIds.get(1)).setAge(11));
+        String committed = poll(etag, 11, 35, 60, 85);
+        mockMvc.perform(get("/v1/members").param("username", "readMember2").header(HttpHeaders.IF_NONE_MATCH, committed))
+                .andExpect(status().isNotModified());
+
+        //읽기 모델이 변경을 반영하기 전에 받은 ETag 로는 304 를 받지 않는다. (벌크 연산처럼 이벤트 없이 바꾸고 reload)
+        new JdbcTemplate(dataSource).update("update member set age = 12 where member_id = ?", memberIds.get(1));
+        em.getEntityManagerFactory().getCache().evictAll();
+        String[] beforeReload = new String[1];
+        memberReadModel.reload(() -> {
+            try {
+                beforeReload[0] = poll(null, 11, 35, 60, 85);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        poll(beforeReload[0], 12, 35, 60, 85);
+    }
+
+    /**
+     * If-None-Match 로 조회해서 200 과 기대한 나이를 확인하고 새 ETag 를 돌려준다.
+     */
+    private String poll(String etag, Integer... ages) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setIfNoneMatch(etag);
+        }
+        return mockMvc.perform(get("/v1/members").param("username", "readMember2").headers(headers))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].age", contains(ages)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private void assertConsistent() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        conditions.add(new MemberSearchCondition());
+        for (String teamName : new String[]{"readTeamA", "readTeamB", "readTeamC", "none"}) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName(teamName);
+            conditions.add(condition);
+        }
+        for (int i = 0; i < 5; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername("readMember" + i);
+            condition.setAgeGoe(i * 10);
+            conditions.add(condition);
+        }
+        MemberSearchCondition range = new MemberSearchCondition();
+        range.setAgeGoe(25);
+        range.setAgeLoe(75);
+        conditions.add(range);
+        MemberSearchCondition renamed = new MemberSearchCondition();
+        renamed.setUsername("readMemberRenamed");
+        renamed.setTeamName("readTeamB");
+        conditions.add(renamed);
+
+        for (MemberSearchCondition condition : conditions) {
+            List<MemberTeamDto> expected = tx.execute(status -> memberSearchQueryCache.search(em, condition));
+            expected.sort((a, b) -> a.getMemberId().compareTo(b.getMemberId()));
+            assertThat(memberReadModel.search(condition))
+                    .as(condition.toString())
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(expected);
+        }
+    }
+}
@@ -1,19 +1,40 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.SqlStatementStats;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ConcurrentCountExecutor;
+import study.querydsl.repository.support.KeysetSlice;
+import study.querydsl.support.SqlBudget;
 
 import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static study.querydsl.entity.QMember.*;
@@ -28,6 +49,18 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    MemberSearchQueryCache memberSearchQueryCache;
+
+    @Autowired
+    ConcurrentCountExecutor concurrentCountExecutor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @Test
     void basicTest() {
         Member member = new Member("member1", 10);
@@ -68,6 +101,43 @@ class MemberRepositoryTest {
         assertThat(resultList).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    void searchQueryShapeCache() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition teamBCondition = new MemberSearchCondition();
+        teamBCondition.setTeamName("teamB");
+        teamBCondition.setAgeGoe(35);
+        List<MemberTeamDto> teamBResult = memberRepository.search(teamBCondition);
+        assertThat(teamBResult).extracting("username").containsExactly("member4");
+
+        long misses = memberSearchQueryCache.getMissCount();
+        long hits = memberSearchQueryCache.getHitCount();
+
+        //같은 shape(teamName, ageGoe), 다른 값
+        MemberSearchCondition teamACondition = new MemberSearchCondition();
+        teamACondition.setTeamName("teamA");
+        teamACondition.setAgeGoe(15);
+        List<MemberTeamDto> teamAResult = memberRepository.search(teamACondition);
+        assertThat(teamAResult).extracting("username").containsExactly("member2");
+        assertThat(teamAResult).extracting("teamName").containsExactly("teamA");
+
+        assertThat(memberSearchQueryCache.getMissCount()).isEqualTo(misses);
+        assertThat(memberSearchQueryCache.getHitCount()).isEqualTo(hits + 1);
+    }
+
     @Test
     void searchPageSimple() {
         Team teamA = new Team("teamA");
@@ -92,6 +162,329 @@ class MemberRepositoryTest {
         assertThat(resultList.getSize()).isEqualTo(3);
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void searchPageComplexCountCache() {
+        //읽기/쓰기 트랜잭션에서는 count 를 캐시하지 않으므로 트랜잭션 밖에서 커밋된 데이터로 확인한다.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = persistCommitted(tx, "countCacheTeam", 4);
+
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("countCacheTeam");
+            long misses = memberCountCache.getMissCount();
+            long hits = memberCountCache.getHitCount();
+
+            Page<MemberTeamDto> page1 = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+            Page<MemberTeamDto> page2 = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+            assertThat(page1.getTotalElements()).isEqualTo(4);
+            assertThat(page2.getTotalElements()).isEqualTo(4);
+            assertThat(memberCountCache.getMissCount()).isEqualTo(misses + 1);
+            assertThat(memberCountCache.getHitCount()).isEqualTo(hits + 1);
+
+            tx.executeWithoutResult(status -> em.persist(new Member("countCache5", 50, em.find(Team.class, team.getId()))));
+
+            Page<MemberTeamDto> afterInsert = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+            assertThat(afterInsert.getTotalElements()).isEqualTo(5);
+            assertThat(memberCountCache.getMissCount()).isEqualTo(misses + 2);
+        } finally {
+            deleteCommitted(tx, team);
+        }
+    }
+
+    @Test
+    void searchPageComplexCountCacheInReadWriteTransaction() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("member" + i, 10 * i, teamA));
+        }
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        long misses = memberCountCache.getMissCount();
+        long hits = memberCountCache.getHitCount();
+
+        //커밋되지 않은 row 가 섞인 count 는 캐시하지 않는다. (롤백되면 다른 요청이 틀린 전체 건수를 보게 된다)
+        Page<MemberTeamDto> page1 = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDto> page2 = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+        assertThat(page1.getTotalElements()).isEqualTo(4);
+        assertThat(page2.getTotalElements()).isEqualTo(4);
+        assertThat(memberCountCache.getMissCount()).isEqualTo(misses);
+        assertThat(memberCountCache.getHitCount()).isEqualTo(hits);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        long committed = readOnly.execute(status -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)).getTotalElements());
+        assertThat(committed).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @SqlBudget(failOnNPlusOne = false)
+    void searchPageComplexSqlBudget(SqlStatementStats stats) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = persistCommitted(tx, "countBudgetTeam", 4);
+
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("countBudgetTeam");
+            stats.clear();
+
+            //첫 페이지는 content + count, 다음 페이지는 캐시된 count 를 쓰므로 content 만
+            memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+            memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+            assertThat(stats.getStatements()).isEqualTo(3);
+            assertThat(stats.getRoundTrips()).isEqualTo(3);
+        } finally {
+            deleteCommitted(tx, team);
+        }
+    }
+
+    @Test
+    void searchPageStrategy() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        Slice<MemberTeamDto> twoQuery = memberRepository.searchPage(condition, pageRequest, PagingStrategy.TWO_QUERY);
+        Slice<MemberTeamDto> window = memberRepository.searchPage(condition, pageRequest, PagingStrategy.WINDOW);
+        Slice<MemberTeamDto> countFree = memberRepository.searchPage(condition, pageRequest, PagingStrategy.COUNT_FREE);
+
+        assertThat(window.getContent()).isEqualTo(twoQuery.getContent());
+        assertThat(countFree.getContent()).isEqualTo(twoQuery.getContent());
+        assertThat(((Page<MemberTeamDto>) twoQuery).getTotalElements()).isEqualTo(3);
+        assertThat(((Page<MemberTeamDto>) window).getTotalElements()).isEqualTo(3);
+        assertThat(countFree).isNotInstanceOf(Page.class);
+        assertThat(countFree.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> windowOutOfRange = memberRepository.searchPage(condition, PageRequest.of(5, 2), PagingStrategy.WINDOW);
+        assertThat(windowOutOfRange.getContent()).isEmpty();
+        assertThat(((Page<MemberTeamDto>) windowOutOfRange).getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void searchPageConcurrentCount() {
+        //count 쿼리는 다른 커넥션에서 실행되므로 데이터를 커밋해야 보인다.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = tx.execute(status -> {
+            Team concurrentTeam = new Team("concurrentTeam");
+            em.persist(concurrentTeam);
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("concurrent" + i, 10 * i, concurrentTeam));
+            }
+            return concurrentTeam;
+        });
+
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("concurrentTeam");
+            long concurrent = concurrentCountExecutor.getConcurrentCount();
+
+            Slice<MemberTeamDto> page = memberRepository.searchPage(condition, PageRequest.of(1, 2), PagingStrategy.CONCURRENT_COUNT);
+            assertThat(page).isInstanceOf(Page.class);
+            assertThat(((Page<MemberTeamDto>) page).getTotalElements()).isEqualTo(5);
+            assertThat(page.getContent()).extracting("username").containsExactly("concurrent2", "concurrent3");
+            assertThat(concurrentCountExecutor.getConcurrentCount()).isEqualTo(concurrent + 1);
+
+            //마지막 페이지는 content 로 전체 건수를 알 수 있다.
+            Slice<MemberTeamDto> lastPage = memberRepository.searchPage(condition, PageRequest.of(0, 10), PagingStrategy.CONCURRENT_COUNT);
+            assertThat(((Page<MemberTeamDto>) lastPage).getTotalElements()).isEqualTo(5);
+        } finally {
+            tx.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.team.id = :teamId")
+                        .setParameter("teamId", team.getId())
+                        .executeUpdate();
+                em.remove(em.find(Team.class, team.getId()));
+            });
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentCountReclaimedWhenCountThreadsBusy() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = persistCommitted(tx, "reclaimTeam", 5);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConcurrentCountExecutor executor = new ConcurrentCountExecutor(
+                blockingFirstTransaction(started, release, new CountDownLatch(1)), 1, 4, Duration.ofSeconds(5));
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            //하나뿐인 작업 스레드가 첫 번째 count 의 트랜잭션을 시작하다가 멈춘다.
+            Future<Page<Member>> first = caller.submit(() -> secondPage(executor, team));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            //두 번째 count 는 큐에서 작업 스레드를 기다리지 않고 요청 스레드가 직접 센다.
+            assertThat(secondPage(executor, team).getTotalElements()).isEqualTo(5);
+            assertThat(executor.getReclaimedCount()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS).getTotalElements()).isEqualTo(5);
+        } finally {
+            release.countDown();
+            caller.shutdown();
+            executor.destroy();
+            deleteCommitted(tx, team);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentCountInterruptedWhenNotNeeded() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = persistCommitted(tx, "interruptTeam", 5);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ConcurrentCountExecutor executor = new ConcurrentCountExecutor(
+                blockingFirstTransaction(started, new CountDownLatch(1), interrupted), 1, 4, Duration.ofSeconds(5));
+        try {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            Page<Member> page = executor.getPage(PageRequest.of(0, 10), () -> {
+                        await(started);
+                        return queryFactory.selectFrom(member).where(member.team.id.eq(team.getId())).fetch();
+                    },
+                    queryFactory.select(member.count()).from(member).where(member.team.id.eq(team.getId())));
+
+            //content 로 전체 건수를 알 수 있으므로 실행 중인 count 를 interrupt 한다.
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(executor.getSkippedCount()).isEqualTo(1);
+            assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.destroy();
+            deleteCommitted(tx, team);
+        }
+    }
+
+    @Test
+    void searchSlice() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2));
+        assertThat(first).extracting("username").containsExactly("member1", "member2");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 2));
+        assertThat(last).extracting("username").containsExactly("member3", "member4");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void searchStream() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, 1)) {
+            List<String> usernames = stream.map(MemberTeamDto::getUsername).collect(Collectors.toList());
+            assertThat(usernames).containsExactlyInAnyOrder("member3", "member4");
+        }
+    }
+
+    @Test
+    void searchKeyset() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 20, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age"));
+
+        KeysetSlice<MemberTeamDto> first = memberRepository.searchKeyset(condition, null, pageRequest);
+        assertThat(first.getContent()).extracting("username").containsExactly("member4", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        KeysetSlice<MemberTeamDto> second = memberRepository.searchKeyset(condition, first.getNextCursor(), pageRequest);
+        assertThat(second.getContent()).extracting("username").containsExactly("member2", "member1");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchKeysetWithNullKeys() {
+        Team team = new Team("keysetNullTeam");
+        em.persist(team);
+        Member nullA = new Member(null, 10, team);
+        em.persist(new Member("member2", 20, team));
+        em.persist(nullA);
+        em.persist(new Member("member1", 30, team));
+        em.persist(new Member(null, 40, team));
+        em.persist(new Member("member3", 50, team));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("keysetNullTeam");
+
+        //null 키는 방향과 상관없이 맨 뒤에 id 순서로 온다
+        assertThat(keysetAges(condition, Sort.Direction.ASC)).containsExactly(30, 20, 50, 10, 40);
+        assertThat(keysetAges(condition, Sort.Direction.DESC)).containsExactly(50, 20, 30, 40, 10);
+    }
+
+    private List<Integer> keysetAges(MemberSearchCondition condition, Sort.Direction direction) {
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(direction, "username"));
+        List<Integer> ages = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetSlice<MemberTeamDto> slice = memberRepository.searchKeyset(condition, cursor, pageRequest);
+            slice.getContent().forEach(dto -> ages.add(dto.getAge()));
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+        return ages;
+    }
+
     @Test
     void querydslPredicateExecutorTest() {
 
@@ -116,4 +509,78 @@ class MemberRepositoryTest {
         }
     }
 
-}
\ No newline at end of file
+    private Page<Member> secondPage(ConcurrentCountExecutor executor, Team team) {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        return executor.getPage(PageRequest.of(1, 2),
+                () -> queryFactory.selectFrom(member)
+                        .where(member.team.id.eq(team.getId()))
+                        .orderBy(member.id.asc())
+                        .offset(2)
+                        .limit(2)
+                        .fetch(),
+                queryFactory.select(member.count()).from(member).where(member.team.id.eq(team.getId())));
+    }
+
+    /**
+     * 처음 시작하는 트랜잭션만 release 될 때까지 멈추고, interrupt 되면 interrupted 를 센다.
+     */
+    private PlatformTransactionManager blockingFirstTransaction(CountDownLatch started, CountDownLatch release,
+                                                                CountDownLatch interrupted) {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (started.getCount() > 0) {
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Team persistCommitted(TransactionTemplate tx, String teamName, int members) {
+        return tx.execute(status -> {
+            Team team = new Team(teamName);
+            em.persist(team);
+            for (int i = 0; i < members; i++) {
+                em.persist(new Member(teamName + i, 10 * i, team));
+            }
+            return team;
+        });
+    }
+
+    private void deleteCommitted(TransactionTemplate tx, Team team) {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id = :teamId")
+                    .setParameter("teamId", team.getId())
+                    .executeUpdate();
+            em.remove(em.find(Team.class, team.getId()));
+        });
+        //벌크 delete 는 변경 이벤트가 없으므로 직접 비운다.
+        memberCountCache.invalidateAll();
+    }
+}
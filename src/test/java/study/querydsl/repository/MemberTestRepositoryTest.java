@@ -0,0 +1,230 @@
+package study.querydsl.repository;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.SqlStatementStats;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ConcurrentCountExecutor;
+import study.querydsl.support.SqlBudget;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    SqlCollector sqlCollector;
+
+    @Autowired
+    ConcurrentCountExecutor concurrentCountExecutor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+        sqlCollector.clear();
+    }
+
+    @Test
+    void applyPaginationCountWithoutJoin() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<Member> result = memberTestRepository.applyPagination(condition, PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).extracting("name").containsExactly("member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+
+        List<String> countSql = sqlCollector.countQueries();
+        assertThat(countSql).hasSize(1);
+        assertThat(countSql.get(0)).doesNotContain("join").doesNotContain("order by");
+    }
+
+    @Test
+    void applyPaginationCountKeepsReferencedJoin() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(20);
+
+        Page<Member> result = memberTestRepository.applyPagination(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getContent()).extracting("name").containsExactly("member3");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+
+        List<String> countSql = sqlCollector.countQueries();
+        assertThat(countSql).hasSize(1);
+        assertThat(countSql.get(0)).contains("left outer join").doesNotContain("distinct");
+    }
+
+    @Test
+    void basicSelectFromReadOnly() {
+        List<Member> result = memberTestRepository.basicSelectFromReadOnly();
+
+        assertThat(result).hasSize(4)
+                .allMatch(m -> em.unwrap(Session.class).isReadOnly(m));
+    }
+
+    @Test
+    @SqlBudget(statements = 2)
+    void applyPagination_memberTeam(SqlStatementStats stats) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<Member> result = memberTestRepository.applyPagination(condition, PageRequest.of(0, 2), MemberFetchPlan.MEMBER_TEAM);
+
+        //content 1번 + count 1번, team 지연 로딩 없음
+        assertThat(result.getContent()).extracting(m -> m.getTeam().getName()).containsExactly("teamA", "teamB");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+
+        //count 쿼리는 fetch join 을 버리고, 참조하지 않는 team 조인도 뺀다.
+        List<String> countSql = sqlCollector.countQueries();
+        assertThat(countSql).hasSize(1);
+        assertThat(countSql.get(0)).doesNotContain("join");
+    }
+
+    @Test
+    @SqlBudget(statements = 3)
+    void applyPagination_teamMembers(SqlStatementStats stats) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        Page<Member> result = memberTestRepository.applyPagination(condition, PageRequest.of(0, 1), MemberFetchPlan.TEAM_MEMBERS);
+
+        //content 1번 + 팀 members 1번 + count 1번
+        Member member = result.getContent().get(0);
+        assertThat(Hibernate.isInitialized(member.getTeam().getMembers())).isTrue();
+        assertThat(member.getTeam().getMembers()).extracting("name").containsExactlyInAnyOrder("member3", "member4");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+
+        List<String> countSql = sqlCollector.countQueries();
+        assertThat(countSql).hasSize(1);
+        assertThat(countSql.get(0)).contains("left outer join").doesNotContain("distinct");
+    }
+
+    @Test
+    void applyPagination_teamMembersWithoutTransaction() {
+        //다른 스레드에서 트랜잭션 없이 호출하려면 데이터가 커밋되어 있어야 한다.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("lazyTeam");
+            em.persist(team);
+            em.persist(new Member("lazyMember1", 10, team));
+            em.persist(new Member("lazyMember2", 20, team));
+            return team.getId();
+        });
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("lazyTeam");
+
+            Page<Member> result = CompletableFuture.supplyAsync(() ->
+                    memberTestRepository.applyPagination(condition, PageRequest.of(0, 1), MemberFetchPlan.TEAM_MEMBERS)).join();
+
+            //영속성 컨텍스트가 닫힌 뒤에도 members 를 읽을 수 있다. (LazyInitializationException 이 나지 않는다)
+            Member member = result.getContent().get(0);
+            assertThat(member.getTeam().getMembers()).extracting("name").containsExactlyInAnyOrder("lazyMember1", "lazyMember2");
+        } finally {
+            tx.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.team.id = :teamId")
+                        .setParameter("teamId", teamId)
+                        .executeUpdate();
+                em.remove(em.find(Team.class, teamId));
+            });
+        }
+    }
+
+    @Test
+    void applyConcurrentPaginationInReadWriteTransaction() {
+        long serial = concurrentCountExecutor.getSerialCount();
+        em.persist(new Member("member5", 50));
+
+        //읽기/쓰기 트랜잭션에서는 아직 커밋되지 않은 member5 도 세야 하므로 같은 커넥션에서 순서대로 실행한다.
+        Page<Member> result = memberTestRepository.applyConcurrentPagination(new MemberSearchCondition(), PageRequest.of(0, 2));
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(concurrentCountExecutor.getSerialCount()).isEqualTo(serial + 1);
+    }
+
+    @Test
+    void applySlicingWithoutCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<Member> result = memberTestRepository.applySlicing(condition, PageRequest.of(1, 3));
+
+        assertThat(result.getContent()).extracting("name").containsExactly("member4");
+        assertThat(result.hasNext()).isFalse();
+        assertThat(sqlCollector.countQueries()).isEmpty();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        SqlCollector sqlCollector() {
+            return new SqlCollector();
+        }
+    }
+
+    static class SqlCollector extends JdbcEventListener {
+
+        private final List<String> sql = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            sql.add(statementInformation.getSql().toLowerCase());
+        }
+
+        List<String> countQueries() {
+            return sql.stream()
+                    .filter(s -> s.contains("count("))
+                    .collect(Collectors.toList());
+        }
+
+        void clear() {
+            sql.clear();
+        }
+    }
+}
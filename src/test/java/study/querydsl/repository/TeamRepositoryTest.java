@@ -0,0 +1,180 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.SqlStatementStats;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlBudget;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 쿼리 캐시는 커밋된 데이터만 캐시하므로 @Transactional 롤백 대신 직접 커밋하고 지운다.
+ */
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long teamId;
+    Long memberId;
+    List<Long> rosterTeamIds = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            Member cacheMember = new Member("cacheMember", 10, team);
+            em.persist(cacheMember);
+            teamId = team.getId();
+            memberId = cacheMember.getId();
+        });
+        emf.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            memberRepository.deleteById(memberId);
+            teamRepository.deleteById(teamId);
+            if (!rosterTeamIds.isEmpty()) {
+                em.createQuery("delete from Member m where m.team.id in :teamIds").setParameter("teamIds", rosterTeamIds).executeUpdate();
+                em.createQuery("delete from Team t where t.id in :teamIds").setParameter("teamIds", rosterTeamIds).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    void teamSecondLevelCache() {
+        //warm up
+        assertThat(findTeamNameOfMember()).isEqualTo("cacheTeam");
+
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(findTeamNameOfMember()).isEqualTo("cacheTeam");
+
+        //member 조회 쿼리만 나가고 team 은 캐시에서 가져온다.
+        assertThat(statistics.getPrepareStatementCount() - statements).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void teamMembersCollectionCache() {
+        tx.executeWithoutResult(status -> assertThat(em.find(Team.class, teamId).getMembers()).hasSize(1));
+
+        long statements = statistics.getPrepareStatementCount();
+        tx.executeWithoutResult(status -> assertThat(em.find(Team.class, teamId).getMembers()).hasSize(1));
+
+        //members 컬렉션은 id 만 캐시되므로 Member 는 다시 조회된다.
+        assertThat(statistics.getPrepareStatementCount() - statements).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("team-members").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void teamMembersCollectionCacheEvictedOnMemberInsert() {
+        tx.executeWithoutResult(status -> assertThat(em.find(Team.class, teamId).getMembers()).hasSize(1));
+
+        //가져오기, 배치 저장처럼 team.getMembers() 를 건드리지 않고 연관관계의 주인(Member.team)만 설정해서 저장한다.
+        Long addedId = tx.execute(status -> {
+            Member added = new Member("cacheMember2", 20);
+            added.setTeam(em.getReference(Team.class, teamId));
+            em.persist(added);
+            return added.getId();
+        });
+        try {
+            //hibernate.cache.auto_evict_collection_cache 가 캐시된 members 컬렉션을 비운다.
+            tx.executeWithoutResult(status -> assertThat(em.find(Team.class, teamId).getMembers())
+                    .extracting("name").containsExactlyInAnyOrder("cacheMember", "cacheMember2"));
+        } finally {
+            tx.executeWithoutResult(status -> memberRepository.deleteById(addedId));
+        }
+        tx.executeWithoutResult(status -> assertThat(em.find(Team.class, teamId).getMembers()).hasSize(1));
+    }
+
+    @Test
+    void findByNameQueryCache() {
+        assertThat(teamRepository.findByName("cacheTeam")).isPresent();
+        assertThat(teamRepository.findByName("cacheTeam")).isPresent();
+
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        //Team 이 바뀌면 쿼리 캐시가 무효화된다.
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).setName("cacheTeam2"));
+        assertThat(teamRepository.findByName("cacheTeam")).isEmpty();
+        assertThat(teamRepository.findByName("cacheTeam2")).isPresent();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SqlBudget(statements = 2, roundTrips = 2)
+    void findRosters(SqlStatementStats stats) {
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < 300; i++) {
+                Team team = new Team("rosterTeam" + i);
+                em.persist(team);
+                em.persist(new Member("rosterMember" + i + "a", 10, team));
+                em.persist(new Member("rosterMember" + i + "b", 20, team));
+                rosterTeamIds.add(team.getId());
+            }
+        });
+        stats.clear();
+
+        //팀 300개를 조회해도 팀 쿼리 1번 + 회원 in 쿼리 1번
+        List<TeamRosterDto> rosters = teamRepository.findRosters(PageRequest.of(0, 500)).stream()
+                .filter(roster -> roster.getTeamName().startsWith("rosterTeam"))
+                .collect(Collectors.toList());
+
+        assertThat(rosters).hasSize(300);
+        assertThat(rosters.get(0).getMembers()).extracting("name").containsExactly("rosterMember0a", "rosterMember0b");
+        assertThat(rosters.get(299).getMembers()).extracting("age").containsExactly(10, 20);
+    }
+
+    private String findTeamNameOfMember() {
+        return tx.execute(status -> {
+            Member findMember = new JPAQueryFactory(em)
+                    .selectFrom(member)
+                    .where(member.id.eq(memberId))
+                    .fetchOne();
+            return findMember.getTeam().getName();
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.repository;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.SqlStatementStats;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlBudget;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamTestRepository teamTestRepository;
+
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("pageTeam" + i);
+            em.persist(team);
+            em.persist(new Member("pageMember" + i + "a", 10, team));
+            em.persist(new Member("pageMember" + i + "b", 20, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @SqlBudget(statements = 3, roundTrips = 3)
+    void applyFetchJoinPagination(SqlStatementStats stats) {
+        stats.clear();
+
+        //id 페이징 + fetch join + count
+        Page<Team> result = teamTestRepository.applyFetchJoinPagination("pageTeam", PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "name")));
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting("name").containsExactly("pageTeam2", "pageTeam1");
+        for (Team team : result.getContent()) {
+            assertThat(Hibernate.isInitialized(team.getMembers())).isTrue();
+            assertThat(team.getMembers()).hasSize(2);
+        }
+    }
+
+    @Test
+    void applyFetchJoinPaginationLastPage() {
+        Page<Team> result = teamTestRepository.applyFetchJoinPagination("pageTeam", PageRequest.of(2, 2, Sort.by("name")));
+
+        assertThat(result.getContent()).extracting("name").containsExactly("pageTeam4");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent().get(0).getMembers()).extracting("name").containsExactlyInAnyOrder("pageMember4a", "pageMember4b");
+    }
+}
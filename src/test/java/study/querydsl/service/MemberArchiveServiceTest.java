@@ -0,0 +1,133 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberArchiveProgress;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberArchive;
+import study.querydsl.entity.MemberArchiveJob;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberArchiveJobRepository;
+import study.querydsl.repository.support.BulkUpdateResult;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 배치마다 커밋하므로 @Transactional 롤백 대신 직접 커밋하고 지운다.
+ */
+@SpringBootTest(properties = {
+        "member.archive.batch-size=2",
+        "member.archive.rows-per-second=0",
+        "member.archive.resume-on-startup=false"
+})
+class MemberArchiveServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberArchiveService memberArchiveService;
+
+    @Autowired
+    MemberArchiveJobRepository memberArchiveJobRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamId;
+    Long jobId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("archiveTeam");
+            em.persist(team);
+            teamId = team.getId();
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("archive" + i, i * 10, team));
+            }
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("archiveTeam");
+            condition.setAgeGoe(20);
+            jobId = memberArchiveJobRepository.save(new MemberArchiveJob(condition)).getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from MemberArchive a where a.jobId = :jobId").setParameter("jobId", jobId).executeUpdate();
+            em.createQuery("delete from Member m where m.team.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+            em.remove(em.find(Team.class, teamId));
+            memberArchiveJobRepository.deleteById(jobId);
+        });
+    }
+
+    @Test
+    void archive() {
+        BulkUpdateResult result = memberArchiveService.run(jobId);
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getRowsAffected()).isEqualTo(4);
+
+        MemberArchiveProgress progress = memberArchiveService.getProgress(jobId);
+        assertThat(progress.getStatus()).isEqualTo(MemberArchiveJob.Status.COMPLETED);
+        assertThat(progress.getRowsArchived()).isEqualTo(4);
+        assertThat(progress.getBatches()).isEqualTo(2);
+        assertThat(progress.isRunning()).isFalse();
+
+        assertThat(remainingAges()).containsExactly(10);
+        assertThat(archivedAges()).containsExactly(20, 30, 40, 50);
+    }
+
+    @Test
+    void resumeFromCheckpoint() {
+        //첫 배치 후 중단 (서버 종료)
+        Thread.currentThread().interrupt();
+        BulkUpdateResult interrupted;
+        try {
+            interrupted = memberArchiveService.run(jobId);
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(interrupted.isCompleted()).isFalse();
+
+        MemberArchiveProgress checkpoint = memberArchiveService.getProgress(jobId);
+        assertThat(checkpoint.getStatus()).isEqualTo(MemberArchiveJob.Status.RUNNING);
+        assertThat(checkpoint.getRowsArchived()).isEqualTo(2);
+        assertThat(remainingAges()).containsExactly(10, 40, 50);
+
+        //체크포인트 다음부터 이어서 실행
+        BulkUpdateResult resumed = memberArchiveService.run(jobId);
+        assertThat(resumed.getRowsAffected()).isEqualTo(2);
+
+        MemberArchiveProgress progress = memberArchiveService.getProgress(jobId);
+        assertThat(progress.getStatus()).isEqualTo(MemberArchiveJob.Status.COMPLETED);
+        assertThat(progress.getRowsArchived()).isEqualTo(4);
+        assertThat(archivedAges()).containsExactly(20, 30, 40, 50);
+    }
+
+    private List<Integer> remainingAges() {
+        return tx.execute(status -> em.createQuery("select m.age from Member m where m.team.id = :teamId order by m.id", Integer.class)
+                .setParameter("teamId", teamId)
+                .getResultList());
+    }
+
+    private List<Integer> archivedAges() {
+        return tx.execute(status -> em.createQuery("select a.age from MemberArchive a where a.jobId = :jobId order by a.id", Integer.class)
+                .setParameter("jobId", jobId)
+                .getResultList());
+    }
+}
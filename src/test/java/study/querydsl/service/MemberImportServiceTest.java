@@ -0,0 +1,93 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.SqlStatementStats;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlBudget;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 청크마다 커밋하므로 @Transactional 롤백 대신 직접 커밋하고 지운다.
+ */
+@SpringBootTest(properties = {
+        "member.import.chunk-size=10",
+        "member.import.batch-size=4"
+})
+class MemberImportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberImportService memberImportService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.persist(new Team("importTeam0")));
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.name like 'import%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'importTeam%'").executeUpdate();
+        });
+    }
+
+    @Test
+    @SqlBudget(failOnNPlusOne = false)
+    void importCsv(SqlStatementStats stats) throws Exception {
+        StringBuilder csv = new StringBuilder("name,age,teamName\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append("import").append(i).append(',').append(i).append(",importTeam").append(i % 3).append('\n');
+        }
+        csv.append("importNoTeam,99,\n");
+
+        MemberImportResult result = memberImportService.importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getRows()).isEqualTo(26);
+        assertThat(result.getChunks()).isEqualTo(3);
+        //importTeam0 은 이미 있으므로 새로 만든 팀은 2개
+        assertThat(result.getTeamsCreated()).isEqualTo(2);
+        //영속성 컨텍스트에는 batch-size 만큼만 (처음 조회하거나 만든 팀 3개 포함)
+        assertThat(result.getMaxManagedEntities()).isLessThanOrEqualTo(4 + 3);
+        //insert 는 JDBC batch 로 묶여서 실행된다.
+        assertThat(stats.getRoundTrips()).isLessThan(stats.getStatements());
+
+        List<Object[]> rows = tx.execute(status -> em.createQuery(
+                        "select t.name, count(m) from Member m left join m.team t where m.name like 'import%' group by t.name order by t.name",
+                        Object[].class)
+                .getResultList());
+        assertThat(rows).extracting(row -> row[0]).containsExactly(null, "importTeam0", "importTeam1", "importTeam2");
+        assertThat(rows).extracting(row -> row[1]).containsExactly(1L, 9L, 8L, 8L);
+    }
+
+    @Test
+    void invalidLine() {
+        String csv = "import1,10,importTeam0\nimport2,abc,importTeam0\n";
+
+        assertThatThrownBy(() -> memberImportService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 2");
+    }
+}
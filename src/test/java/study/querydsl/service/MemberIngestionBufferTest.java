@@ -0,0 +1,169 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 배치마다 커밋하므로 @Transactional 롤백 대신 직접 커밋하고 지운다.
+ */
+@SpringBootTest(properties = {
+        "member.ingest.batch-size=50",
+        "member.ingest.max-delay=50ms"
+})
+class MemberIngestionBufferTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberIngestionBuffer memberIngestionBuffer;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamId = tx.execute(status -> {
+            Team team = new Team("ingestTeam");
+            em.persist(team);
+            return team.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.name like 'ingest%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'ingestTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    void submit() throws Exception {
+        Map<String, Long> before = memberIngestionBuffer.metrics();
+
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            futures.add(CompletableFuture.supplyAsync(() -> memberIngestionBuffer.submit("ingest" + n, n % 100, teamId), writers)
+                    .thenCompose(future -> future));
+        }
+        List<Long> ids = new ArrayList<>();
+        for (CompletableFuture<Long> future : futures) {
+            ids.add(future.get(10, TimeUnit.SECONDS));
+        }
+        writers.shutdown();
+
+        assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(countSaved(ids)).isEqualTo(200);
+
+        Map<String, Long> after = memberIngestionBuffer.metrics();
+        assertThat(after.get("acknowledged") - before.get("acknowledged")).isEqualTo(200);
+        //요청마다 커밋하지 않고 배치로 모아서 커밋한다.
+        assertThat(after.get("batches") - before.get("batches")).isLessThan(50);
+        assertThat(after.get("p99LatencyMicros")).isPositive();
+    }
+
+    @Test
+    void submit_failedRequestOnly() throws Exception {
+        CompletableFuture<Long> ok1 = memberIngestionBuffer.submit("ingestOk1", 10, teamId);
+        CompletableFuture<Long> invalid = memberIngestionBuffer.submit("ingestInvalid", 20, -1L);
+        CompletableFuture<Long> ok2 = memberIngestionBuffer.submit("ingestOk2", 30, null);
+
+        assertThat(ok1.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(ok2.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThatThrownBy(invalid::join).isInstanceOf(CompletionException.class);
+        assertThat(countSaved(List.of(ok1.join(), ok2.join()))).isEqualTo(2);
+    }
+
+    @Test
+    void submit_backpressure() {
+        MemberIngestionBuffer buffer = new MemberIngestionBuffer(em, transactionManager, 1, 1, Duration.ZERO, Duration.ZERO);
+        try {
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                futures.add(buffer.submit("ingest" + i, 10, null));
+            }
+            //큐가 가득 차면 기다리지 않고(offer-timeout 0) 바로 거절한다.
+            List<CompletableFuture<Long>> rejected = new ArrayList<>();
+            for (CompletableFuture<Long> future : futures) {
+                if (future.isCompletedExceptionally()) {
+                    rejected.add(future);
+                }
+            }
+            assertThat(rejected).isNotEmpty();
+            assertThat(buffer.metrics().get("rejected")).isEqualTo(rejected.size());
+            assertThatThrownBy(rejected.get(0)::join)
+                    .hasCauseInstanceOf(MemberIngestionBuffer.IngestionRejectedException.class);
+        } finally {
+            haltQuietly(buffer);
+        }
+    }
+
+    /**
+     * 저장 도중에 강제로 멈춰도, id 로 완료된(응답한) 요청은 모두 커밋되어 있어야 한다.
+     */
+    @Test
+    void halt_acknowledgedMembersAreNotLost() throws Exception {
+        MemberIngestionBuffer buffer = new MemberIngestionBuffer(em, transactionManager, 10000, 20, Duration.ofMillis(5), Duration.ofSeconds(1));
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(buffer.submit("ingest" + i, i % 100, teamId));
+            if (i == 500) {
+                futures.get(0).get(10, TimeUnit.SECONDS);
+            }
+        }
+        buffer.halt();
+
+        List<Long> acknowledged = new ArrayList<>();
+        for (CompletableFuture<Long> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                acknowledged.add(future.join());
+            }
+        }
+        assertThat(acknowledged).isNotEmpty();
+        assertThat(countSaved(acknowledged)).isEqualTo(acknowledged.size());
+        //멈춘 뒤에는 받지 않는다.
+        assertThatThrownBy(() -> buffer.submit("ingestAfterHalt", 10, null).join())
+                .hasCauseInstanceOf(MemberIngestionBuffer.IngestionRejectedException.class);
+    }
+
+    private long countSaved(List<Long> ids) {
+        return tx.execute(status -> em.createQuery("select count(m) from Member m where m.id in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getSingleResult());
+    }
+
+    private static void haltQuietly(MemberIngestionBuffer buffer) {
+        try {
+            buffer.halt();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 본문에서 실행되는 SQL 수를 제한한다. (@BeforeEach 는 세지 않는다)
+ * 테스트 메서드에 SqlStatementStats 파라미터를 선언하면 중간에 clear() 하거나 직접 검증할 수 있다.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlBudgetExtension.class)
+public @interface SqlBudget {
+
+    /**
+     * 최대 SQL 수
+     */
+    int statements() default Integer.MAX_VALUE;
+
+    /**
+     * 최대 DB 왕복 수
+     */
+    int roundTrips() default Integer.MAX_VALUE;
+
+    /**
+     * N+1 로 의심되는 반복 SQL 이 있으면 실패시킨다.
+     */
+    boolean failOnNPlusOne() default true;
+}
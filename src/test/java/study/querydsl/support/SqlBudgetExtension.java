@@ -0,0 +1,66 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import study.querydsl.config.SqlStatementListener;
+import study.querydsl.config.SqlStatementStats;
+
+import java.util.List;
+
+/**
+ * SqlStatementListener 로 테스트 메서드마다 SQL 통계를 모으고 @SqlBudget 을 넘으면 실패시킨다.
+ */
+public class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlStatementStats stats = listener(context).start();
+        context.getStore(NAMESPACE).put(SqlStatementStats.class, stats);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementStats stats = listener(context).stop(context.getDisplayName());
+        if (stats == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        SqlBudget budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), SqlBudget.class)
+                .orElseGet(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), SqlBudget.class).orElse(null));
+        if (budget == null) {
+            return;
+        }
+
+        if (stats.getStatements() > budget.statements()) {
+            throw new AssertionError("SQL budget exceeded: " + stats.getStatements() + " statements > " + budget.statements() + "\n" + stats.getShapes().values());
+        }
+        if (stats.getRoundTrips() > budget.roundTrips()) {
+            throw new AssertionError("SQL budget exceeded: " + stats.getRoundTrips() + " round trips > " + budget.roundTrips() + "\n" + stats.getShapes().values());
+        }
+        List<SqlStatementStats.Shape> suspects = stats.getNPlusOneSuspects();
+        if (budget.failOnNPlusOne() && !suspects.isEmpty()) {
+            throw new AssertionError("N+1 suspected: " + suspects);
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == SqlStatementStats.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return extensionContext.getStore(NAMESPACE).get(SqlStatementStats.class, SqlStatementStats.class);
+    }
+
+    private SqlStatementListener listener(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(SqlStatementListener.class);
+    }
+}